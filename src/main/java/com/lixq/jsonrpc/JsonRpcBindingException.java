@@ -0,0 +1,17 @@
+package com.lixq.jsonrpc;
+
+/**
+ * 请求中的 params 无法绑定为方法参数（参数个数、名称或类型不匹配），对应 InvalidParams 错误；
+ * 服务方法自身抛出的 IllegalArgumentException 不属于此类，按 InternalError 处理
+ */
+public class JsonRpcBindingException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    public JsonRpcBindingException(String message) {
+        super(message);
+    }
+
+    public JsonRpcBindingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
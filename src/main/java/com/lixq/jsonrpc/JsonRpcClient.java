@@ -1,26 +1,37 @@
 package com.lixq.jsonrpc;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-<<<<<<< HEAD
+import com.lixq.jsonrpc.core.JsonRpcCompression;
+import com.lixq.jsonrpc.core.JsonRpcEncoding;
+import com.lixq.jsonrpc.core.JsonRpcFraming;
 import com.lixq.jsonrpc.core.JsonRpcProtocol;
+import com.lixq.jsonrpc.core.JsonRpcSelectionStrategy;
+import com.lixq.jsonrpc.core.JsonRpcTransport;
+import com.lixq.jsonrpc.core.JsonRpcWaitStrategy;
 import com.lixq.jsonrpc.core.RpcRequest;
 import com.lixq.jsonrpc.core.RpcResponse;
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.codec.DelimiterBasedFrameDecoder;
-import io.netty.handler.codec.Delimiters;
-import io.netty.handler.codec.string.StringDecoder;
-import io.netty.handler.codec.string.StringEncoder;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.charset.StandardCharsets;
-import java.util.UUID;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * JSON-RPC 客户端
@@ -29,60 +40,334 @@ public class JsonRpcClient {
     private static final Logger log = LoggerFactory.getLogger(JsonRpcClient.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
     
+    private final JsonRpcProtocol protocol;
     private final String host;
     private final int port;
     
     private EventLoopGroup group;
-    private Channel channel;
-    private JsonRpcClientHandler handler;
+    private Bootstrap bootstrap;
+
+    // 传输实现，默认自动选择原生传输
+    private JsonRpcTransport transport = JsonRpcTransport.AUTO;
+    // IPC 协议：Unix 域套接字文件路径
+    private String socketPath = JsonRpcServer.DEFAULT_SOCKET_PATH;
+    // SHM 协议：共享文件路径与读端等待策略
+    private String sharedMemoryPath = JsonRpcSharedMemory.DEFAULT_PATH;
+    private JsonRpcWaitStrategy sharedMemoryWaitStrategy = JsonRpcWaitStrategy.PARK;
+    // LOCAL 协议：服务端的进程内绑定名称、连接状态、请求 id 与未完成的请求数
+    private String localName = JsonRpcLocal.DEFAULT_NAME;
+    private volatile boolean localConnected;
+    private final AtomicLong localIdSequence = new AtomicLong();
+    private final AtomicInteger localPending = new AtomicInteger();
+
+    // 分帧配置，默认换行分帧以兼容旧服务端
+    private JsonRpcFraming framing = JsonRpcFraming.LINE;
+    private int maxFrameLength = JsonRpcFrames.DEFAULT_MAX_FRAME_LENGTH;
+    // 编码格式，非 JSON 时连接建立后先发送握手帧
+    private JsonRpcEncoding encoding = JsonRpcEncoding.JSON;
+    private JsonRpcEncodings.Codec codec = JsonRpcEncodings.codec(JsonRpcEncoding.JSON);
+    // 帧压缩，默认关闭；开启后在握手中协商，需要长度前缀分帧
+    private JsonRpcCompression compression = JsonRpcCompression.NONE;
+    private int compressionThreshold = 1024;
+    // HTTP2 协议的 TLS 上下文，为 null 时使用明文 h2c
+    private SslContext sslContext;
+
+    // 连接池配置
+    private int maxConnections = 1;
+    private JsonRpcSelectionStrategy selectionStrategy = JsonRpcSelectionStrategy.LEAST_PENDING;
+    // 默认请求超时时间（毫秒），小于等于 0 表示不超时
+    private long requestTimeoutMillis = 30000;
+
+    // 微批配置，默认关闭
+    private boolean autoBatch = false;
+    private long batchWindowMicros = 200;
+    private int maxBatchSize = 64;
+
+    // 连接池快照，连接按需创建，关闭后自动移除；读路径无锁
+    private volatile Connection[] connections = new Connection[0];
+    private final AtomicBoolean connecting = new AtomicBoolean();
+    private final AtomicInteger roundRobinIndex = new AtomicInteger();
 
     public JsonRpcClient(String host, int port) {
         this(JsonRpcProtocol.TCP, host, port);
     }
 
+    /**
+     * @param protocol TCP、HTTP2、IPC、SHM 或 LOCAL，其他协议按 TCP 处理
+     */
     public JsonRpcClient(JsonRpcProtocol protocol, String host, int port) {
+        this.protocol = protocol;
         this.host = host;
         this.port = port;
     }
 
     /**
-     * 连接到服务器
+     * 设置传输实现，原生传输不可用时回退为 NIO，需在 connect() 之前设置
+     */
+    public void setTransport(JsonRpcTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * 设置 IPC 协议连接的 Unix 域套接字文件路径，IPC 协议忽略 host 与 port，需在 connect() 之前设置
+     */
+    public void setSocketPath(String socketPath) {
+        this.socketPath = socketPath;
+    }
+
+    /**
+     * 设置 SHM 协议连接的共享文件路径，需与服务端一致，SHM 协议忽略 host 与 port，需在 connect() 之前设置
+     */
+    public void setSharedMemoryPath(String sharedMemoryPath) {
+        this.sharedMemoryPath = sharedMemoryPath;
+    }
+
+    /**
+     * 设置 SHM 协议读端的等待策略，需在 connect() 之前设置
+     */
+    public void setSharedMemoryWaitStrategy(JsonRpcWaitStrategy sharedMemoryWaitStrategy) {
+        this.sharedMemoryWaitStrategy = sharedMemoryWaitStrategy;
+    }
+
+    /**
+     * 设置 LOCAL 协议调用的服务端绑定名称，需与同一 JVM 内的服务端一致，LOCAL 协议忽略 host 与 port
+     */
+    public void setLocalName(String localName) {
+        this.localName = localName;
+    }
+
+    /**
+     * 设置分帧方式，需与服务端一致（服务端为 AUTO 时两种方式均可），客户端的 AUTO 按 LINE 处理
+     */
+    public void setFraming(JsonRpcFraming framing) {
+        this.framing = framing == JsonRpcFraming.AUTO ? JsonRpcFraming.LINE : framing;
+    }
+
+    /**
+     * 设置单帧最大字节数，对请求和响应均生效
+     */
+    public void setMaxFrameLength(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * 设置编码格式，二进制格式需要长度前缀分帧，需在 connect() 之前设置
+     */
+    public void setEncoding(JsonRpcEncoding encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * 设置帧压缩算法，需要服务端支持握手协商，开启后使用长度前缀分帧
+     */
+    public void setCompression(JsonRpcCompression compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * 设置帧压缩阈值（字节），请求负载小于该值时不压缩
+     */
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * 设置 HTTP2 协议的 TLS 上下文，需通过 ALPN 协商 h2，可使用 JsonRpcHttp2.clientSslContext 创建
+     */
+    public void setSslContext(SslContext sslContext) {
+        this.sslContext = sslContext;
+    }
+
+    /**
+     * 设置每个服务端的最大连接数，连接在并发请求增多时按需创建
+     */
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = Math.max(1, maxConnections);
+    }
+
+    /**
+     * 设置连接选择策略
+     */
+    public void setSelectionStrategy(JsonRpcSelectionStrategy selectionStrategy) {
+        this.selectionStrategy = selectionStrategy;
+    }
+
+    /**
+     * 设置默认请求超时时间（毫秒），小于等于 0 表示不超时
+     */
+    public void setRequestTimeoutMillis(long requestTimeoutMillis) {
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    /**
+     * 开启或关闭自动微批：开启后同一连接上在窗口内发出的请求合并为一个 JSON-RPC 批量请求发送，
+     * 需在 connect() 之前设置
+     */
+    public void setAutoBatch(boolean autoBatch) {
+        this.autoBatch = autoBatch;
+    }
+
+    /**
+     * 设置微批收集窗口（微秒），0 表示只合并同一次 EventLoop 调度前已到达的请求
+     */
+    public void setBatchWindowMicros(long batchWindowMicros) {
+        this.batchWindowMicros = Math.max(0, batchWindowMicros);
+    }
+
+    /**
+     * 设置单个批量请求的最大请求数，达到后不等窗口结束立即发送
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * 连接到服务器，建立连接池中的第一个连接；
+     * 再次调用时复用未关闭的 EventLoopGroup，首次连接失败且没有可用连接时关闭 EventLoopGroup
      */
     public CompletableFuture<Void> connect() {
-        CompletableFuture<Void> connectFuture = new CompletableFuture<>();
-        
-        group = new NioEventLoopGroup();
-        handler = new JsonRpcClientHandler();
-        
-        Bootstrap b = new Bootstrap();
-        b.group(group)
-         .channel(NioSocketChannel.class)
-         .option(ChannelOption.TCP_NODELAY, true)
-         .handler(new ChannelInitializer<SocketChannel>() {
+        if (protocol == JsonRpcProtocol.LOCAL) {
+            return connectLocal();
+        }
+        if (protocol == JsonRpcProtocol.HTTP2) {
+            // 每个调用独占一个 HTTP/2 流，编码格式、帧压缩与微批均不适用
+            if (encoding != JsonRpcEncoding.JSON || compression != JsonRpcCompression.NONE || autoBatch) {
+                log.warn("HTTP/2 transport uses plain JSON requests, ignoring encoding {}, compression {} and auto batching",
+                    encoding, compression);
+            }
+            encoding = JsonRpcEncoding.JSON;
+            compression = JsonRpcCompression.NONE;
+            autoBatch = false;
+        }
+        codec = JsonRpcEncodings.codec(encoding);
+        if (encoding != JsonRpcEncoding.JSON) {
+            if (framing == JsonRpcFraming.LINE) {
+                log.warn("{} encoding cannot use line framing, switching to length-prefixed framing", encoding);
+                framing = JsonRpcFraming.LENGTH_PREFIXED;
+            }
+            if (autoBatch) {
+                log.warn("Auto batching is only supported with JSON encoding, sending {} requests individually", encoding);
+                autoBatch = false;
+            }
+        }
+        if (compression != JsonRpcCompression.NONE) {
+            // 提前加载压缩库，缺失时连接前即失败
+            JsonRpcCompressors.create(compression).close();
+            if (framing == JsonRpcFraming.LINE) {
+                log.warn("{} compression cannot use line framing, switching to length-prefixed framing", compression);
+                framing = JsonRpcFraming.LENGTH_PREFIXED;
+            }
+        }
+
+        JsonRpcTransports.Transport selected;
+        if (protocol == JsonRpcProtocol.IPC) {
+            selected = JsonRpcTransports.resolveDomainSocket(transport);
+        } else if (protocol == JsonRpcProtocol.SHM) {
+            selected = JsonRpcTransports.sharedMemory(sharedMemoryWaitStrategy);
+        } else {
+            selected = JsonRpcTransports.resolve(transport);
+        }
+        if (group == null || group.isShuttingDown()) {
+            group = selected.newEventLoopGroup(0);
+        }
+        EventLoopGroup connectGroup = group;
+
+        bootstrap = new Bootstrap();
+        bootstrap.group(group)
+         .channel(selected.getChannelClass())
+         .remoteAddress(remoteAddress())
+         .handler(new ChannelInitializer<Channel>() {
              @Override
-             public void initChannel(SocketChannel ch) {
+             public void initChannel(Channel ch) {
                  ChannelPipeline pipeline = ch.pipeline();
                  
-                 // 使用换行符作为分隔符
-                 pipeline.addLast(new DelimiterBasedFrameDecoder(8192, Delimiters.lineDelimiter()));
-                 pipeline.addLast(new StringDecoder(StandardCharsets.UTF_8));
-                 pipeline.addLast(new StringEncoder(StandardCharsets.UTF_8));
+                 if (protocol == JsonRpcProtocol.HTTP2) {
+                     // HTTP/2 多路复用，响应按流返回，无需分帧
+                     JsonRpcHttp2.addClientHandlers(ch, sslContext, host, port);
+                 } else {
+                     // 换行分帧或长度前缀分帧，TCP、IPC 与 SHM 相同
+                     JsonRpcFrames.addDecoder(ch, framing, maxFrameLength);
+                 }
                  
-                 // 添加业务处理器
-                 pipeline.addLast(handler);
+                 // 添加业务处理器，每个连接独立维护待处理请求，响应帧按编码格式直接解析
+                 pipeline.addLast(new JsonRpcClientHandler(codec.getObjectMapper()));
              }
          });
 
-        ChannelFuture future = b.connect(host, port);
+        if (protocol != JsonRpcProtocol.IPC && protocol != JsonRpcProtocol.SHM) {
+            bootstrap.option(ChannelOption.TCP_NODELAY, true);
+        }
+
+        CompletableFuture<Void> connectFuture = openConnection();
+        connectFuture.whenComplete((v, e) -> {
+            if (e != null && connections.length == 0) {
+                connectGroup.shutdownGracefully();
+            }
+        });
+        return connectFuture;
+    }
+
+    /**
+     * LOCAL 协议：只检查同一 JVM 内的服务端是否已绑定，不建立任何 Channel；
+     * 请求对象直接交给服务端处理器，编码格式、帧压缩与微批均不适用
+     */
+    private CompletableFuture<Void> connectLocal() {
+        if (encoding != JsonRpcEncoding.JSON || compression != JsonRpcCompression.NONE || autoBatch) {
+            log.warn("Local transport passes request objects directly, ignoring encoding {}, compression {} and auto batching",
+                encoding, compression);
+        }
+        CompletableFuture<Void> connectFuture = new CompletableFuture<>();
+        if (JsonRpcLocal.lookup(localName) == null) {
+            ConnectException cause = new ConnectException("No JSON-RPC server bound to " + JsonRpcLocal.address(localName));
+            log.error("Failed to connect to server", cause);
+            connectFuture.completeExceptionally(cause);
+            return connectFuture;
+        }
+        localConnected = true;
+        log.info("Connected to JSON-RPC server at {}", JsonRpcLocal.address(localName));
+        connectFuture.complete(null);
+        return connectFuture;
+    }
+
+    private SocketAddress remoteAddress() {
+        if (protocol == JsonRpcProtocol.IPC) {
+            return new DomainSocketAddress(socketPath);
+        }
+        if (protocol == JsonRpcProtocol.SHM) {
+            return new JsonRpcSharedMemory.SharedMemoryAddress(sharedMemoryPath);
+        }
+        return InetSocketAddress.createUnresolved(host, port);
+    }
+
+    /**
+     * 新建一个连接并加入连接池
+     */
+    private CompletableFuture<Void> openConnection() {
+        CompletableFuture<Void> connectFuture = new CompletableFuture<>();
+
+        ChannelFuture future = bootstrap.connect();
         future.addListener((ChannelFutureListener) f -> {
             if (f.isSuccess()) {
-                channel = f.channel();
-                log.info("Connected to JSON-RPC server at {}:{}", host, port);
+                if (encoding != JsonRpcEncoding.JSON || compression != JsonRpcCompression.NONE) {
+                    // 握手帧在连接加入连接池之前写出，保证先于任何请求到达服务端
+                    f.channel().writeAndFlush(JsonRpcEncodings.handshake(f.channel().alloc(), encoding, compression, framing));
+                }
+                if (compression != JsonRpcCompression.NONE) {
+                    // 监听器在 EventLoop 上执行，握手帧已经写出，之后的帧才经过压缩处理器
+                    ChannelPipeline pipeline = f.channel().pipeline();
+                    pipeline.addBefore(pipeline.context(JsonRpcClientHandler.class).name(), "compression",
+                        new JsonRpcCompressionHandler(compression, compressionThreshold, maxFrameLength));
+                }
+                JsonRpcRequestBatcher batcher = autoBatch
+                    ? new JsonRpcRequestBatcher(f.channel(), batchWindowMicros, maxBatchSize, maxFrameLength, framing) : null;
+                Connection connection = new Connection(f.channel(), f.channel().pipeline().get(JsonRpcClientHandler.class), batcher);
+                addConnection(connection);
+                f.channel().closeFuture().addListener(cf -> removeConnection(connection));
+                log.info("Connected to JSON-RPC server at {} ({} connection(s))", f.channel().remoteAddress(), connections.length);
                 connectFuture.complete(null);
             } else {
                 log.error("Failed to connect to server", f.cause());
                 connectFuture.completeExceptionally(f.cause());
-                group.shutdownGracefully();
             }
         });
 
@@ -90,45 +375,149 @@ public class JsonRpcClient {
     }
 
     /**
-     * 发送请求
+     * 选择一个连接；所选连接已有未完成请求且连接数未达上限时，异步扩充连接池
+     */
+    private Connection selectConnection() {
+        Connection[] pool = connections;
+        Connection selected = null;
+        if (selectionStrategy == JsonRpcSelectionStrategy.ROUND_ROBIN) {
+            for (int i = 0; i < pool.length && selected == null; i++) {
+                Connection connection = pool[Math.floorMod(roundRobinIndex.getAndIncrement(), pool.length)];
+                if (connection.isActive()) {
+                    selected = connection;
+                }
+            }
+        } else {
+            int minPending = Integer.MAX_VALUE;
+            for (Connection connection : pool) {
+                int pending = connection.handler.getPendingCount();
+                if (connection.isActive() && pending < minPending) {
+                    selected = connection;
+                    minPending = pending;
+                }
+            }
+        }
+
+        if (bootstrap != null && pool.length < maxConnections
+            && (selected == null || selected.handler.getPendingCount() > 0)) {
+            growPool();
+        }
+        return selected;
+    }
+
+    private synchronized void addConnection(Connection connection) {
+        Connection[] pool = Arrays.copyOf(connections, connections.length + 1);
+        pool[pool.length - 1] = connection;
+        connections = pool;
+    }
+
+    private synchronized void removeConnection(Connection connection) {
+        List<Connection> pool = new ArrayList<>(Arrays.asList(connections));
+        pool.remove(connection);
+        connections = pool.toArray(new Connection[0]);
+    }
+
+    private void growPool() {
+        if (group.isShuttingDown() || !connecting.compareAndSet(false, true)) {
+            return;
+        }
+        openConnection().whenComplete((v, e) -> connecting.set(false));
+    }
+
+    /**
+     * 发送请求，使用所选连接上单调递增的数字 id
      */
     public CompletableFuture<RpcResponse> sendRequest(String method, Object params) {
-        return sendRequest(method, params, UUID.randomUUID().toString());
+        return sendRequest(method, params, requestTimeoutMillis, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * 发送请求（指定 ID）
+     * 发送请求并指定本次调用的超时时间，超时后 Future 以 TimeoutException 结束
      */
-    public CompletableFuture<RpcResponse> sendRequest(String method, Object params, String id) {
-        if (channel == null || !channel.isActive()) {
-            CompletableFuture<RpcResponse> future = new CompletableFuture<>();
-            future.completeExceptionally(new IllegalStateException("Client not connected"));
-            return future;
+    public CompletableFuture<RpcResponse> sendRequest(String method, Object params, long timeout, TimeUnit unit) {
+        if (protocol == JsonRpcProtocol.LOCAL) {
+            RpcRequest request = new RpcRequest(method, params, Long.toString(localIdSequence.incrementAndGet()));
+            return sendLocal(request, unit.toMillis(timeout));
+        }
+        Connection connection = selectConnection();
+        if (connection == null) {
+            return notConnected();
         }
+        long id = connection.handler.nextId();
+        RpcRequest request = new RpcRequest(method, params, Long.toString(id));
+        return send(connection, request, id, null, unit.toMillis(timeout));
+    }
 
+    /**
+     * 发送请求（指定 ID）；id 只用于调用方关联响应与取消请求，线路上使用连接分配的数字 id，响应的 id 还原为该 id
+     */
+    public CompletableFuture<RpcResponse> sendRequest(String method, Object params, String id) {
         RpcRequest request = new RpcRequest(method, params, id);
         return sendRequest(request);
     }
 
     /**
-     * 发送请求对象
+     * 发送请求对象，多个调用方可并发地复用连接池
      */
     public CompletableFuture<RpcResponse> sendRequest(RpcRequest request) {
-        if (channel == null || !channel.isActive()) {
-            CompletableFuture<RpcResponse> future = new CompletableFuture<>();
-            future.completeExceptionally(new IllegalStateException("Client not connected"));
-            return future;
+        return sendRequest(request, requestTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 发送请求对象并指定本次调用的超时时间
+     */
+    public CompletableFuture<RpcResponse> sendRequest(RpcRequest request, long timeout, TimeUnit unit) {
+        if (protocol == JsonRpcProtocol.LOCAL) {
+            return sendLocal(request, unit.toMillis(timeout));
         }
+        Connection connection = selectConnection();
+        if (connection == null) {
+            return notConnected();
+        }
+        // 自定义 id 不上线路，避免与连接自动分配的数字 id 冲突
+        long id = connection.handler.nextId();
+        RpcRequest wireRequest = new RpcRequest(request.getMethod(), request.getParams(), Long.toString(id));
+        wireRequest.setJsonrpc(request.getJsonrpc());
+        return send(connection, wireRequest, id, request.getId(), unit.toMillis(timeout));
+    }
 
+    /**
+     * 在指定连接上发送请求，request 的 id 为 numericId；key 为调用方自定义的 id，收到响应时还原
+     */
+    private CompletableFuture<RpcResponse> send(Connection connection, RpcRequest request, long numericId, String key,
+                                                long timeoutMillis) {
         try {
-            String json = objectMapper.writeValueAsString(request);
-            log.debug("Sending JSON-RPC request: {}", json);
+            if (log.isDebugEnabled()) {
+                log.debug("Sending JSON-RPC request: {}", objectMapper.writeValueAsString(request));
+            }
+            // 直接编码为 ByteBuf；微批模式下由批处理器组装分隔符或长度字段，HTTP/2 下只编码请求体
+            ByteBuf frame = connection.batcher == null && protocol != JsonRpcProtocol.HTTP2
+                ? codec.getMessageEncoder().encode(connection.channel.alloc(), request, framing)
+                : codec.getMessageEncoder().encodeBody(connection.channel.alloc(), request);
 
             // 注册响应 Future
-            CompletableFuture<RpcResponse> responseFuture = handler.registerRequest(request.getId());
+            JsonRpcClientHandler handler = connection.handler;
+            PendingRequestTable.PendingRequest responseFuture = handler.registerRequest(numericId, key, timeoutMillis);
 
-            // 发送请求（添加换行符作为分隔符）
-            channel.writeAndFlush(json + "\n");
+            if (connection.batcher != null) {
+                // 微批模式：与窗口内的其他请求合并为一个批量数组帧发送
+                connection.batcher.add(frame, cause -> handler.failRequest(responseFuture, cause));
+                return responseFuture;
+            }
+
+            if (protocol == JsonRpcProtocol.HTTP2) {
+                // 每个请求新开一个流，响应体交回连接上的处理器按 id 分发
+                JsonRpcHttp2.writeRequest(connection.channel, host + ":" + port, sslContext != null, frame,
+                    handler, maxFrameLength, cause -> handler.failRequest(responseFuture, cause));
+                return responseFuture;
+            }
+
+            // 发送请求，写失败时立即结束对应的 Future
+            connection.channel.writeAndFlush(frame).addListener(f -> {
+                if (!f.isSuccess()) {
+                    handler.failRequest(responseFuture, f.cause());
+                }
+            });
 
             return responseFuture;
         } catch (Exception e) {
@@ -139,19 +528,89 @@ public class JsonRpcClient {
         }
     }
 
+    /**
+     * LOCAL 协议：请求对象与参数原样交给服务端处理器，响应中的 result 为服务方法返回的对象本身，不经过序列化；
+     * 服务端在调用线程上执行时（INLINE）同步完成，否则按超时时间等待业务线程
+     */
+    private CompletableFuture<RpcResponse> sendLocal(RpcRequest request, long timeoutMillis) {
+        JsonRpcServerHandler server = localConnected ? JsonRpcLocal.lookup(localName) : null;
+        if (server == null) {
+            return notConnected();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Sending local JSON-RPC request: {} ({})", request.getMethod(), request.getId());
+        }
+        localPending.incrementAndGet();
+        CompletableFuture<RpcResponse> response = server.handleLocal(request);
+        response.whenComplete((r, e) -> localPending.decrementAndGet());
+        if (timeoutMillis <= 0 || response.isDone()) {
+            return response;
+        }
+        CompletableFuture<RpcResponse> timed = new CompletableFuture<>();
+        // LOCAL 协议没有 EventLoop，超时在公共线程池上结束 Future，调用方的回调不会阻塞时间轮线程
+        Timeout timeout = JsonRpcClientHandler.timeoutTimer.newTimeout(t -> ForkJoinPool.commonPool().execute(() ->
+            timed.completeExceptionally(new TimeoutException(
+                "JSON-RPC request " + request.getId() + " timed out after " + timeoutMillis + " ms"))), timeoutMillis, TimeUnit.MILLISECONDS);
+        response.whenComplete((r, e) -> {
+            timeout.cancel();
+            if (e != null) {
+                timed.completeExceptionally(e);
+            } else {
+                timed.complete(r);
+            }
+        });
+        return timed;
+    }
+
+    private static CompletableFuture<RpcResponse> notConnected() {
+        CompletableFuture<RpcResponse> future = new CompletableFuture<>();
+        future.completeExceptionally(new IllegalStateException("Client not connected"));
+        return future;
+    }
+
     /**
      * 检查是否已连接
      */
     public boolean isConnected() {
-        return channel != null && channel.isActive();
+        if (protocol == JsonRpcProtocol.LOCAL) {
+            return localConnected && JsonRpcLocal.lookup(localName) != null;
+        }
+        for (Connection connection : connections) {
+            if (connection.isActive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 所有连接上未完成的请求数
+     */
+    public int getPendingCount() {
+        int pending = localPending.get();
+        for (Connection connection : connections) {
+            pending += connection.handler.getPendingCount();
+        }
+        return pending;
+    }
+
+    /**
+     * 当前连接池中的连接数
+     */
+    public int getConnectionCount() {
+        if (protocol == JsonRpcProtocol.LOCAL) {
+            return isConnected() ? 1 : 0;
+        }
+        return connections.length;
     }
 
     /**
      * 关闭连接
      */
     public void close() {
-        if (channel != null && channel.isActive()) {
-            channel.close();
+        localConnected = false;
+        for (Connection connection : connections) {
+            connection.channel.close();
         }
         if (group != null) {
             group.shutdownGracefully();
@@ -159,6 +618,26 @@ public class JsonRpcClient {
         log.info("JSON-RPC Client closed");
     }
 
+    /**
+     * 连接池中的单个连接
+     */
+    private static class Connection {
+        private final Channel channel;
+        private final JsonRpcClientHandler handler;
+        // 未开启微批时为 null
+        private final JsonRpcRequestBatcher batcher;
+
+        Connection(Channel channel, JsonRpcClientHandler handler, JsonRpcRequestBatcher batcher) {
+            this.channel = channel;
+            this.handler = handler;
+            this.batcher = batcher;
+        }
+
+        boolean isActive() {
+            return channel.isActive();
+        }
+    }
+
     /**
      * 测试主方法
      */
@@ -186,84 +665,5 @@ public class JsonRpcClient {
 
         // 等待响应
         Thread.sleep(2000);
-=======
-import io.netty.bootstrap.Bootstrap;
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
-import io.netty.channel.ChannelFuture;
-import io.netty.channel.ChannelInitializer;
-import io.netty.channel.ChannelPipeline;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.codec.http.*;
-import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
-import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
-import io.netty.handler.codec.string.StringDecoder;
-import io.netty.handler.codec.string.StringEncoder;
-
-import java.nio.charset.StandardCharsets;
-
-public class JsonRpcClient {
-
-    private static final String HOST = "localhost";
-    private static final int PORT = 8081;
-    private final EventLoopGroup group = new NioEventLoopGroup();
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
-    public JsonRpcResponse sendRequest(JsonRpcRequest request,String protocol) throws Exception {
-        Bootstrap b = new Bootstrap();
-        b.group(group)
-                .channel(NioSocketChannel.class)
-                .handler(new ChannelInitializer<SocketChannel>() {
-                    @Override
-                    protected void initChannel(SocketChannel ch) throws Exception {
-                        ChannelPipeline pipeline = ch.pipeline();
-                        if ("http".equals(protocol)) {
-                            pipeline.addLast(new HttpClientCodec());
-                            pipeline.addLast(new HttpObjectAggregator(65536));
-                        } else if ("websocket".equals(protocol)) {
-                            pipeline.addLast(new HttpClientCodec());
-                            pipeline.addLast(new HttpObjectAggregator(65536));
-                            pipeline.addLast(new WebSocketClientHandshakerFactory().newHandshaker(
-                                    java.net.URI.create("ws://" + HOST + ":" + PORT + "/ws"),
-                                    io.netty.handler.codec.http.websocketx.WebSocketVersion.V13,
-                                    null, false, new DefaultHttpHeaders()));
-                            pipeline.addLast(new io.netty.handler.codec.http.websocketx.WebSocketClientProtocolHandler(java.net.URI.create("ws://" + HOST + ":" + PORT + "/ws")));
-                        } else if ("tcp".equals(protocol)) {
-                            pipeline.addLast(new StringDecoder());
-                            pipeline.addLast(new StringEncoder());
-                        }
-                        pipeline.addLast(new JsonRpcClientHandler());
-                    }
-                });
-
-        ChannelFuture f = b.connect(HOST, PORT).sync();
-        String requestJson = objectMapper.writeValueAsString(request);
-
-        if ("http".equals(protocol)) {
-            ByteBuf content = Unpooled.copiedBuffer(requestJson, StandardCharsets.UTF_8);
-            FullHttpRequest httpRequest = new DefaultFullHttpRequest(
-                    HttpVersion.HTTP_1_1, HttpMethod.POST, "/", content);
-            httpRequest.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json; charset=UTF-8");
-            httpRequest.headers().set(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
-            f.channel().writeAndFlush(httpRequest).sync();
-        } else if ("websocket".equals(protocol)) {
-            f.channel().writeAndFlush(new TextWebSocketFrame(requestJson)).sync();
-        } else if ("tcp".equals(protocol)) {
-            f.channel().writeAndFlush(requestJson).sync();
-        }
-
-        JsonRpcClientHandler handler = (JsonRpcClientHandler) f.channel().pipeline().get(JsonRpcClientHandler.class);
-        JsonRpcResponse response = handler.getResponse();
-
-        f.channel().closeFuture().sync();
-        return response;
-    }
-
-    public void shutdown() {
-        group.shutdownGracefully();
->>>>>>> 8e4a0eb843bd226a7ca1b5f86903446f846cc9b7
     }
 }
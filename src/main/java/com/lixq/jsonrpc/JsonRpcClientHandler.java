@@ -1,39 +1,102 @@
 package com.lixq.jsonrpc;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-<<<<<<< HEAD
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.lixq.jsonrpc.core.RpcResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * JSON-RPC 客户端处理器
  */
 public class JsonRpcClientHandler extends ChannelInboundHandlerAdapter {
     private static final Logger log = LoggerFactory.getLogger(JsonRpcClientHandler.class);
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectMapper defaultObjectMapper = new ObjectMapper();
+    // 所有客户端共享的时间轮，超时检查不再为每个请求创建 ScheduledFuture
+    static final Timer timeoutTimer = new HashedWheelTimer(
+        new DefaultThreadFactory("jsonrpc-timeout", true), 10, TimeUnit.MILLISECONDS, 512);
     
-    // 存储待处理的响应 Future，key 为 request id
-    private final Map<String, CompletableFuture<RpcResponse>> pendingRequests = new ConcurrentHashMap<>();
+    // 存储待处理的响应 Future，数字 id 直接按槽位索引
+    private final PendingRequestTable pendingRequests = new PendingRequestTable();
+    // 本连接单调递增的请求 id
+    private final AtomicLong idSequence = new AtomicLong();
+    // 累计超时的请求数
+    private final LongAdder timeoutCount = new LongAdder();
+    private final ObjectMapper objectMapper;
+    private final ObjectReader responseReader;
+    private volatile ChannelHandlerContext ctx;
+
+    public JsonRpcClientHandler() {
+        this(defaultObjectMapper);
+    }
+
+    /**
+     * @param objectMapper 与连接编码格式一致的 ObjectMapper
+     */
+    public JsonRpcClientHandler(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.responseReader = objectMapper.readerFor(RpcResponse.class);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-        // StringDecoder 已经将 ByteBuf 转换为 String
-        String json = (String) msg;
-        log.debug("Received JSON-RPC response: {}", json);
+        // 直接从帧 ByteBuf 解析，不再经过 StringDecoder
+        readResponses((ByteBuf) msg);
+    }
 
-        RpcResponse response = objectMapper.readValue(json, RpcResponse.class);
-        
-        // 查找对应的 Future 并完成
+    /**
+     * 解析一帧响应（单个或批量数组）并完成对应的 Future，之后释放该帧；HTTP/2 流的响应体也从这里分发
+     */
+    void readResponses(ByteBuf frame) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser((InputStream) new ByteBufInputStream(frame))) {
+            // 批量请求的响应为数组，按 id 逐个分发
+            if (parser.nextToken() == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    complete(responseReader.<RpcResponse>readValue(parser));
+                }
+            } else {
+                complete(responseReader.<RpcResponse>readValue(parser));
+            }
+        } finally {
+            ReferenceCountUtil.release(frame);
+        }
+    }
+
+    /**
+     * 查找响应对应的 Future 并完成
+     */
+    private void complete(RpcResponse response) {
+        log.debug("Received JSON-RPC response: {}", response.getId());
         String id = response.getId();
-        CompletableFuture<RpcResponse> future = pendingRequests.remove(id);
+        PendingRequestTable.PendingRequest future = pendingRequests.remove(id);
         if (future != null) {
+            future.cancelTimeout();
+            if (future.getKey() != null) {
+                response.setId(future.getKey());
+            }
             future.complete(response);
         } else {
             log.warn("Received response with unknown id: {}", id);
@@ -41,84 +104,130 @@ public class JsonRpcClientHandler extends ChannelInboundHandlerAdapter {
     }
 
     /**
-     * 注册待处理的请求
+     * 生成本连接的下一个请求 id
      */
-    public CompletableFuture<RpcResponse> registerRequest(String id) {
-        CompletableFuture<RpcResponse> future = new CompletableFuture<>();
-        pendingRequests.put(id, future);
-        return future;
+    public long nextId() {
+        return idSequence.incrementAndGet();
     }
 
     /**
-     * 取消请求
+     * 注册待处理的请求（数字 id）
      */
-    public void cancelRequest(String id) {
-        CompletableFuture<RpcResponse> future = pendingRequests.remove(id);
-        if (future != null && !future.isDone()) {
-            future.cancel(true);
+    public PendingRequestTable.PendingRequest registerRequest(long id) {
+        return registerRequest(id, 0);
+    }
+
+    /**
+     * 注册待处理的请求（数字 id），timeoutMillis 大于 0 时超时后以 TimeoutException 结束
+     */
+    public PendingRequestTable.PendingRequest registerRequest(long id, long timeoutMillis) {
+        return scheduleTimeout(pendingRequests.register(id), timeoutMillis);
+    }
+
+    /**
+     * 注册调用方自定义 id（key）的请求，线路上使用数字 id，收到响应时 id 还原为 key
+     */
+    public PendingRequestTable.PendingRequest registerRequest(long id, String key, long timeoutMillis) {
+        return scheduleTimeout(pendingRequests.register(id, key), timeoutMillis);
+    }
+
+    private PendingRequestTable.PendingRequest scheduleTimeout(PendingRequestTable.PendingRequest request, long timeoutMillis) {
+        if (timeoutMillis > 0) {
+            request.setTimeout(timeoutTimer.newTimeout(t -> onTimeout(request, timeoutMillis), timeoutMillis, TimeUnit.MILLISECONDS));
         }
+        return request;
     }
 
-    @Override
-    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
-        log.error("Exception in channel", cause);
-        
-        // 取消所有待处理的请求
-        for (CompletableFuture<RpcResponse> future : pendingRequests.values()) {
-            if (!future.isDone()) {
-                future.completeExceptionally(cause);
+    /**
+     * 超时回调：仅当请求仍未完成时将其移出待处理表，并在连接所属的 EventLoop 上结束 Future，避免阻塞时间轮线程
+     */
+    private void onTimeout(PendingRequestTable.PendingRequest request, long timeoutMillis) {
+        if (!pendingRequests.remove(request)) {
+            return;
+        }
+        timeoutCount.increment();
+        Object id = request.getKey() != null ? request.getKey() : request.getId();
+        TimeoutException cause = new TimeoutException("JSON-RPC request " + id + " timed out after " + timeoutMillis + " ms");
+        ChannelHandlerContext context = ctx;
+        if (context != null) {
+            try {
+                context.executor().execute(() -> request.completeExceptionally(cause));
+                return;
+            } catch (RejectedExecutionException e) {
+                // EventLoop 已关闭，只能在时间轮线程上结束
             }
         }
-        pendingRequests.clear();
-        
-        ctx.close();
-=======
-import io.netty.buffer.ByteBuf;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.handler.codec.http.FullHttpResponse;
-import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+        request.completeExceptionally(cause);
+    }
 
-import java.nio.charset.StandardCharsets;
-import java.util.concurrent.CountDownLatch;
+    /**
+     * 当前未完成的请求数
+     */
+    public int getPendingCount() {
+        return pendingRequests.size();
+    }
 
-public class JsonRpcClientHandler extends SimpleChannelInboundHandler<Object> {
+    /**
+     * 累计超时的请求数
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private JsonRpcResponse response;
-    private final CountDownLatch latch = new CountDownLatch(1);
+    /**
+     * 取消请求（数字 id）
+     */
+    public void cancelRequest(long id) {
+        PendingRequestTable.PendingRequest future = pendingRequests.remove(id);
+        if (future != null && !future.isDone()) {
+            future.cancelTimeout();
+            future.cancel(true);
+        }
+    }
 
-    @Override
-    protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
-        String responseJson;
-        if (msg instanceof FullHttpResponse) {
-            FullHttpResponse httpResponse = (FullHttpResponse) msg;
-            ByteBuf content = httpResponse.content();
-            responseJson = content.toString(StandardCharsets.UTF_8);
-        } else if (msg instanceof TextWebSocketFrame) {
-            TextWebSocketFrame frame = (TextWebSocketFrame) msg;
-            responseJson = frame.text();
-        } else if (msg instanceof ByteBuf) {
-            ByteBuf buffer = (ByteBuf) msg;
-            responseJson = buffer.toString(StandardCharsets.UTF_8);
-        } else {
-            return;
+    /**
+     * 按调用方自定义的 id 取消请求
+     */
+    public void cancelRequest(String id) {
+        PendingRequestTable.PendingRequest future = pendingRequests.removeByKey(id);
+        if (future != null && !future.isDone()) {
+            future.cancelTimeout();
+            future.cancel(true);
         }
-        objectMapper.disable(SerializationFeature.INDENT_OUTPUT);
-        response = objectMapper.readValue(responseJson, JsonRpcResponse.class);
-        latch.countDown();
+    }
+
+    /**
+     * 以异常结束请求并从待处理表中移除
+     */
+    public void failRequest(PendingRequestTable.PendingRequest request, Throwable cause) {
+        pendingRequests.remove(request);
+        request.cancelTimeout();
+        request.completeExceptionally(cause);
     }
 
     @Override
-    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
-        cause.printStackTrace();
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // 连接断开后不会再收到响应，立即结束所有待处理的请求
+        failAll(new IllegalStateException("Connection to JSON-RPC server closed"));
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.error("Exception in channel", cause);
+        
+        // 取消所有待处理的请求
+        failAll(cause);
+        
         ctx.close();
-        latch.countDown();
     }
 
-    public JsonRpcResponse getResponse() throws InterruptedException {
-        latch.await();
-        return response;
->>>>>>> 8e4a0eb843bd226a7ca1b5f86903446f846cc9b7
+    private void failAll(Throwable cause) {
+        for (PendingRequestTable.PendingRequest future : pendingRequests.drain()) {
+            future.cancelTimeout();
+            if (!future.isDone()) {
+                future.completeExceptionally(cause);
+            }
+        }
     }
 }
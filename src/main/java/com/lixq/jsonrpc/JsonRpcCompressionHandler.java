@@ -0,0 +1,106 @@
+package com.lixq.jsonrpc;
+
+import com.lixq.jsonrpc.core.JsonRpcCompression;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.codec.TooLongFrameException;
+
+import java.util.List;
+
+/**
+ * 帧压缩处理器，位于长度前缀帧解码器之后
+ * 协商压缩后每帧负载以 1 字节标记开头：0 表示原文，1 表示已压缩，其后为 4 字节原始长度和压缩数据；
+ * 出站帧负载达到阈值且压缩后确实变小时才压缩，原文帧只追加标记字节，不复制负载
+ */
+public class JsonRpcCompressionHandler extends MessageToMessageCodec<ByteBuf, ByteBuf> {
+    private static final byte RAW = 0;
+    private static final byte COMPRESSED = 1;
+    private static final int LENGTH_FIELD_SIZE = JsonRpcFrames.LENGTH_FIELD_SIZE;
+
+    private final JsonRpcCompressors.Compressor compressor;
+    private final int threshold;
+    private final int maxFrameLength;
+
+    /**
+     * @param threshold 负载达到该字节数才压缩
+     * @param maxFrameLength 解压后的最大字节数
+     */
+    public JsonRpcCompressionHandler(JsonRpcCompression compression, int threshold, int maxFrameLength) {
+        this.compressor = JsonRpcCompressors.create(compression);
+        this.threshold = threshold;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * 出站消息为完整的长度前缀帧
+     */
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf frame, List<Object> out) {
+        int payloadStart = frame.readerIndex() + LENGTH_FIELD_SIZE;
+        int payloadLength = frame.readableBytes() - LENGTH_FIELD_SIZE;
+
+        if (payloadLength >= threshold) {
+            ByteBuf compressed = ctx.alloc().ioBuffer(payloadLength / 2 + 16);
+            boolean success = false;
+            try {
+                compressed.writeInt(0).writeByte(COMPRESSED).writeInt(payloadLength);
+                compressor.compress(frame.slice(payloadStart, payloadLength), compressed);
+                int compressedLength = compressed.readableBytes() - LENGTH_FIELD_SIZE;
+                if (compressedLength < payloadLength) {
+                    compressed.setInt(0, compressedLength);
+                    out.add(compressed);
+                    success = true;
+                    return;
+                }
+            } finally {
+                if (!success) {
+                    compressed.release();
+                }
+            }
+        }
+
+        CompositeByteBuf raw = ctx.alloc().compositeBuffer(2);
+        raw.addComponent(true, ctx.alloc().ioBuffer(LENGTH_FIELD_SIZE + 1).writeInt(payloadLength + 1).writeByte(RAW));
+        raw.addComponent(true, frame.retainedSlice(payloadStart, payloadLength));
+        out.add(raw);
+    }
+
+    /**
+     * 入站消息为去掉长度字段后的帧负载
+     */
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf payload, List<Object> out) throws Exception {
+        if (!payload.isReadable()) {
+            throw new CorruptedFrameException("Missing compression flag");
+        }
+        byte flag = payload.readByte();
+        if (flag == RAW) {
+            out.add(payload.retainedSlice());
+            return;
+        }
+        if (flag != COMPRESSED || payload.readableBytes() < 4) {
+            throw new CorruptedFrameException("Invalid compression flag: " + flag);
+        }
+        int originalLength = payload.readInt();
+        if (originalLength < 0 || originalLength > maxFrameLength) {
+            throw new TooLongFrameException("Decompressed frame length " + originalLength + " exceeds " + maxFrameLength);
+        }
+        ByteBuf decompressed = ctx.alloc().ioBuffer(originalLength);
+        try {
+            compressor.decompress(payload, decompressed, originalLength);
+        } catch (Exception e) {
+            decompressed.release();
+            throw new CorruptedFrameException("Cannot decompress frame", e);
+        }
+        out.add(decompressed);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        compressor.close();
+        super.handlerRemoved(ctx);
+    }
+}
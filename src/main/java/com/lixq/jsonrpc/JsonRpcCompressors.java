@@ -0,0 +1,160 @@
+package com.lixq.jsonrpc;
+
+import com.github.luben.zstd.Zstd;
+import com.lixq.jsonrpc.core.JsonRpcCompression;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 帧压缩算法工厂
+ * LZ4 与 zstd 为可选依赖，只有选中时才会加载对应的类
+ */
+public final class JsonRpcCompressors {
+
+    private JsonRpcCompressors() {
+    }
+
+    /**
+     * 创建压缩器，压缩库不在类路径中时抛出 IllegalStateException
+     */
+    public static Compressor create(JsonRpcCompression compression) {
+        try {
+            switch (compression) {
+                case LZ4:
+                    return new Lz4Compressor();
+                case ZSTD:
+                    return new ZstdCompressor();
+                case DEFLATE:
+                    return new DeflateCompressor();
+                case NONE:
+                default:
+                    throw new IllegalArgumentException("No compressor for " + compression);
+            }
+        } catch (LinkageError e) {
+            throw new IllegalStateException(compression + " compression library is not on the classpath", e);
+        }
+    }
+
+    /**
+     * 帧压缩器，同一实例只在所属连接的 EventLoop 上使用
+     */
+    public interface Compressor {
+        /**
+         * 将 src 的可读字节压缩后写入 dst
+         */
+        void compress(ByteBuf src, ByteBuf dst);
+
+        /**
+         * 将 src 的可读字节解压到 dst，originalLength 为压缩前的字节数
+         */
+        void decompress(ByteBuf src, ByteBuf dst, int originalLength) throws DataFormatException;
+
+        /**
+         * 释放本地资源
+         */
+        default void close() {
+        }
+    }
+
+    private static class Lz4Compressor implements Compressor {
+        private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+        // 帧来自对端，不可信：fastDecompressor 按声明的长度解压，畸形输入可能越界读取
+        private final LZ4SafeDecompressor decompressor = LZ4Factory.fastestInstance().safeDecompressor();
+
+        @Override
+        public void compress(ByteBuf src, ByteBuf dst) {
+            int length = src.readableBytes();
+            int maxLength = compressor.maxCompressedLength(length);
+            dst.ensureWritable(maxLength);
+            ByteBuffer in = src.nioBuffer(src.readerIndex(), length);
+            ByteBuffer out = dst.nioBuffer(dst.writerIndex(), maxLength);
+            int written = compressor.compress(in, in.position(), length, out, out.position(), maxLength);
+            dst.writerIndex(dst.writerIndex() + written);
+        }
+
+        @Override
+        public void decompress(ByteBuf src, ByteBuf dst, int originalLength) throws DataFormatException {
+            dst.ensureWritable(originalLength);
+            int length = src.readableBytes();
+            ByteBuffer in = src.nioBuffer(src.readerIndex(), length);
+            ByteBuffer out = dst.nioBuffer(dst.writerIndex(), originalLength);
+            int decompressed = decompressor.decompress(in, in.position(), length, out, out.position(), originalLength);
+            if (decompressed != originalLength) {
+                throw new DataFormatException("Decompressed " + decompressed + " bytes, expected " + originalLength);
+            }
+            dst.writerIndex(dst.writerIndex() + originalLength);
+        }
+    }
+
+    private static class ZstdCompressor implements Compressor {
+        private static final int LEVEL = 3;
+
+        ZstdCompressor() {
+            // 尽早触发本地库加载，缺失时在协商阶段失败
+            Zstd.defaultCompressionLevel();
+        }
+
+        @Override
+        public void compress(ByteBuf src, ByteBuf dst) {
+            dst.writeBytes(Zstd.compress(ByteBufUtil.getBytes(src), LEVEL));
+        }
+
+        @Override
+        public void decompress(ByteBuf src, ByteBuf dst, int originalLength) throws DataFormatException {
+            byte[] out = Zstd.decompress(ByteBufUtil.getBytes(src), originalLength);
+            if (out.length != originalLength) {
+                throw new DataFormatException("Decompressed " + out.length + " bytes, expected " + originalLength);
+            }
+            dst.writeBytes(out);
+        }
+    }
+
+    private static class DeflateCompressor implements Compressor {
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final Inflater inflater = new Inflater(true);
+
+        @Override
+        public void compress(ByteBuf src, ByteBuf dst) {
+            deflater.reset();
+            deflater.setInput(ByteBufUtil.getBytes(src));
+            deflater.finish();
+            byte[] chunk = new byte[Math.max(64, Math.min(src.readableBytes(), 64 * 1024))];
+            while (!deflater.finished()) {
+                dst.writeBytes(chunk, 0, deflater.deflate(chunk));
+            }
+        }
+
+        @Override
+        public void decompress(ByteBuf src, ByteBuf dst, int originalLength) throws DataFormatException {
+            inflater.reset();
+            inflater.setInput(ByteBufUtil.getBytes(src));
+            byte[] out = new byte[originalLength];
+            int length = 0;
+            while (length < originalLength && !inflater.finished()) {
+                int n = inflater.inflate(out, length, originalLength - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != originalLength) {
+                throw new DataFormatException("Inflated " + length + " bytes, expected " + originalLength);
+            }
+            dst.writeBytes(out);
+        }
+
+        @Override
+        public void close() {
+            deflater.end();
+            inflater.end();
+        }
+    }
+}
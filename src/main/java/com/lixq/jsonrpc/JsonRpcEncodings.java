@@ -0,0 +1,232 @@
+package com.lixq.jsonrpc;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lixq.jsonrpc.core.JsonRpcCompression;
+import com.lixq.jsonrpc.core.JsonRpcEncoding;
+import com.lixq.jsonrpc.core.JsonRpcFraming;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 编码格式注册表
+ * 每种编码格式共享一组 ObjectMapper / 信封解析器 / 消息编码器；二进制格式的 JsonFactory 通过反射加载，
+ * 对应的数据格式模块为可选依赖。
+ * 握手：客户端连接建立后先发送一帧 JSON 文本 {"jsonrpc.encoding":"SMILE","jsonrpc.compression":"LZ4"}，
+ * 服务端据此切换该连接的编码格式并安装压缩处理器，无需额外往返
+ */
+public final class JsonRpcEncodings {
+    private static final Logger log = LoggerFactory.getLogger(JsonRpcEncodings.class);
+
+    private static final String HANDSHAKE_FIELD = "jsonrpc.encoding";
+    private static final String COMPRESSION_FIELD = "jsonrpc.compression";
+    private static final byte[] HANDSHAKE_PREFIX = ("{\"" + HANDSHAKE_FIELD + "\":\"").getBytes(StandardCharsets.UTF_8);
+    private static final AttributeKey<JsonRpcEncoding> ENCODING = AttributeKey.valueOf("jsonrpc.encoding");
+
+    private static final Map<JsonRpcEncoding, Codec> codecs = new ConcurrentHashMap<>();
+
+    private JsonRpcEncodings() {
+    }
+
+    /**
+     * 获取编码格式对应的编解码器，数据格式模块不在类路径中时抛出 IllegalStateException
+     */
+    public static Codec codec(JsonRpcEncoding encoding) {
+        return codecs.computeIfAbsent(encoding, e -> new Codec(new ObjectMapper(createFactory(e))));
+    }
+
+    /**
+     * 连接使用的编码格式，未设置时为 JSON
+     */
+    public static JsonRpcEncoding encoding(Channel channel) {
+        JsonRpcEncoding encoding = channel.attr(ENCODING).get();
+        return encoding != null ? encoding : JsonRpcEncoding.JSON;
+    }
+
+    /**
+     * 服务端：设置连接的默认编码格式，并添加握手识别器（需位于帧解码器之后）
+     *
+     * @param compressionThreshold 客户端协商压缩时，负载达到该字节数才压缩
+     * @param maxFrameLength 解压后的最大字节数
+     */
+    public static void addNegotiator(Channel channel, JsonRpcEncoding defaultEncoding, int compressionThreshold, int maxFrameLength) {
+        channel.attr(ENCODING).set(defaultEncoding);
+        channel.pipeline().addLast(new Negotiator(compressionThreshold, maxFrameLength));
+    }
+
+    /**
+     * 客户端：编码握手帧
+     */
+    public static ByteBuf handshake(ByteBufAllocator allocator, JsonRpcEncoding encoding, JsonRpcFraming framing) throws IOException {
+        return handshake(allocator, encoding, JsonRpcCompression.NONE, framing);
+    }
+
+    /**
+     * 客户端：编码握手帧，compression 不为 NONE 时同时协商帧压缩
+     */
+    public static ByteBuf handshake(ByteBufAllocator allocator, JsonRpcEncoding encoding, JsonRpcCompression compression,
+                                    JsonRpcFraming framing) throws IOException {
+        // 编码字段必须在最前，服务端按固定前缀识别握手帧
+        Map<String, String> handshake = new LinkedHashMap<>();
+        handshake.put(HANDSHAKE_FIELD, encoding.name());
+        if (compression != JsonRpcCompression.NONE) {
+            handshake.put(COMPRESSION_FIELD, compression.name());
+        }
+        return codec(JsonRpcEncoding.JSON).getMessageEncoder().encode(allocator, handshake, framing);
+    }
+
+    private static JsonFactory createFactory(JsonRpcEncoding encoding) {
+        String factoryClass;
+        switch (encoding) {
+            case SMILE:
+                factoryClass = "com.fasterxml.jackson.dataformat.smile.SmileFactory";
+                break;
+            case CBOR:
+                factoryClass = "com.fasterxml.jackson.dataformat.cbor.CBORFactory";
+                break;
+            case MSGPACK:
+                factoryClass = "org.msgpack.jackson.dataformat.MessagePackFactory";
+                break;
+            case JSON:
+            default:
+                return new JsonFactory();
+        }
+        try {
+            return (JsonFactory) Class.forName(factoryClass).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException(encoding + " encoding requires " + factoryClass + " on the classpath", e);
+        }
+    }
+
+    /**
+     * 解析握手帧，非握手帧返回 null
+     */
+    private static Handshake parseHandshake(ByteBuf frame) throws IOException {
+        if (frame.readableBytes() <= HANDSHAKE_PREFIX.length) {
+            return null;
+        }
+        int start = frame.readerIndex();
+        for (int i = 0; i < HANDSHAKE_PREFIX.length; i++) {
+            if (frame.getByte(start + i) != HANDSHAKE_PREFIX[i]) {
+                return null;
+            }
+        }
+        Map<?, ?> fields = codec(JsonRpcEncoding.JSON).getObjectMapper()
+            .readValue(frame.toString(StandardCharsets.UTF_8), Map.class);
+        return new Handshake(
+            parseField(JsonRpcEncoding.class, fields.get(HANDSHAKE_FIELD), JsonRpcEncoding.JSON),
+            parseField(JsonRpcCompression.class, fields.get(COMPRESSION_FIELD), JsonRpcCompression.NONE));
+    }
+
+    private static <E extends Enum<E>> E parseField(Class<E> type, Object value, E defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value.toString());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported JSON-RPC " + type.getSimpleName() + ": " + value);
+        }
+    }
+
+    private static class Handshake {
+        private final JsonRpcEncoding encoding;
+        private final JsonRpcCompression compression;
+
+        Handshake(JsonRpcEncoding encoding, JsonRpcCompression compression) {
+            this.encoding = encoding;
+            this.compression = compression;
+        }
+    }
+
+    /**
+     * 每种编码格式的编解码组件
+     */
+    public static class Codec {
+        private final ObjectMapper objectMapper;
+        private final JsonRpcEnvelopeParser envelopeParser;
+        private final JsonRpcMessageEncoder messageEncoder;
+
+        Codec(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            this.envelopeParser = new JsonRpcEnvelopeParser(objectMapper);
+            this.messageEncoder = new JsonRpcMessageEncoder(objectMapper);
+        }
+
+        public ObjectMapper getObjectMapper() {
+            return objectMapper;
+        }
+
+        public JsonRpcEnvelopeParser getEnvelopeParser() {
+            return envelopeParser;
+        }
+
+        public JsonRpcMessageEncoder getMessageEncoder() {
+            return messageEncoder;
+        }
+    }
+
+    /**
+     * 只检查连接的第一帧：握手帧切换编码格式、按需安装压缩处理器后被丢弃，其他帧原样交给后续处理器；检查后移除自身
+     */
+    private static class Negotiator extends ChannelInboundHandlerAdapter {
+        private final int compressionThreshold;
+        private final int maxFrameLength;
+
+        Negotiator(int compressionThreshold, int maxFrameLength) {
+            this.compressionThreshold = compressionThreshold;
+            this.maxFrameLength = maxFrameLength;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (!(msg instanceof ByteBuf)) {
+                ctx.pipeline().remove(this);
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            Handshake handshake;
+            try {
+                handshake = parseHandshake((ByteBuf) msg);
+                if (handshake != null) {
+                    // 提前创建编解码器，格式模块缺失时在握手阶段即失败
+                    codec(handshake.encoding);
+                    if (handshake.compression != JsonRpcCompression.NONE) {
+                        if (JsonRpcFrames.framing(ctx.channel()) != JsonRpcFraming.LENGTH_PREFIXED) {
+                            throw new IllegalArgumentException("compression requires LENGTH_PREFIXED framing");
+                        }
+                        ctx.pipeline().addAfter(ctx.name(), "compression",
+                            new JsonRpcCompressionHandler(handshake.compression, compressionThreshold, maxFrameLength));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Rejecting JSON-RPC connection from {}: {}", ctx.channel().remoteAddress(), e.getMessage());
+                ReferenceCountUtil.release(msg);
+                ctx.close();
+                return;
+            }
+            ctx.pipeline().remove(this);
+            if (handshake == null) {
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            ReferenceCountUtil.release(msg);
+            ctx.channel().attr(ENCODING).set(handshake.encoding);
+            log.debug("JSON-RPC connection {} negotiated {} encoding, {} compression",
+                ctx.channel().remoteAddress(), handshake.encoding, handshake.compression);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.lixq.jsonrpc;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.lixq.jsonrpc.core.RpcRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON-RPC 请求信封解析器
+ * 基于 Jackson 流式 API 单次扫描请求，只读取 jsonrpc/method/id 字段，
+ * params 以 TokenBuffer 形式原样保留，直到分发时再绑定到目标方法的参数类型
+ */
+public class JsonRpcEnvelopeParser {
+    private final ObjectMapper objectMapper;
+
+    public JsonRpcEnvelopeParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 解析 ByteBuf 中的请求，不产生中间 String
+     */
+    public Envelope parse(ByteBuf buf) throws IOException {
+        try (JsonParser parser = createParser(buf)) {
+            return parse(parser);
+        }
+    }
+
+    /**
+     * 解析请求，根据首个 token 判断是单个请求还是批量请求
+     */
+    public Envelope parse(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new IOException("Empty JSON-RPC request");
+        }
+
+        if (token == JsonToken.START_ARRAY) {
+            List<RpcRequest> requests = new ArrayList<>();
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IOException("Unexpected end of JSON-RPC batch request");
+                }
+                requests.add(readElement(parser));
+            }
+            return new Envelope(true, requests.toArray(new RpcRequest[0]));
+        }
+        return new Envelope(false, new RpcRequest[]{readElement(parser)});
+    }
+
+    /**
+     * 读取一个请求元素，非对象元素视为无效请求（method 为空）
+     */
+    private RpcRequest readElement(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return new RpcRequest();
+        }
+
+        RpcRequest request = new RpcRequest();
+        boolean valid = true;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "jsonrpc":
+                    valid &= value.isScalarValue();
+                    request.setJsonrpc(readScalar(parser));
+                    break;
+                case "method":
+                    valid &= value.isScalarValue();
+                    request.setMethod(readScalar(parser));
+                    break;
+                case "id":
+                    valid &= value.isScalarValue();
+                    request.setId(readScalar(parser));
+                    break;
+                case "params":
+                    request.setParams(readParams(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+
+        if (!valid) {
+            // 字段类型不合法时清空 method，由分发逻辑返回 InvalidRequest
+            request.setMethod(null);
+        }
+        return request;
+    }
+
+    private String readScalar(JsonParser parser) throws IOException {
+        if (!parser.currentToken().isScalarValue()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+    }
+
+    /**
+     * 将 params 复制为未绑定的 token 片段
+     */
+    private Object readParams(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        TokenBuffer params = new TokenBuffer(parser);
+        params.copyCurrentStructure(parser);
+        return params;
+    }
+
+    private JsonParser createParser(ByteBuf buf) throws IOException {
+        if (buf.hasArray()) {
+            return objectMapper.getFactory().createParser(buf.array(), buf.arrayOffset() + buf.readerIndex(), buf.readableBytes());
+        }
+        return objectMapper.getFactory().createParser((InputStream) new ByteBufInputStream(buf));
+    }
+
+    /**
+     * 解析结果
+     */
+    public static class Envelope {
+        private final boolean batch;
+        private final RpcRequest[] requests;
+
+        public Envelope(boolean batch, RpcRequest[] requests) {
+            this.batch = batch;
+            this.requests = requests;
+        }
+
+        public boolean isBatch() {
+            return batch;
+        }
+
+        public RpcRequest[] getRequests() {
+            return requests;
+        }
+    }
+}
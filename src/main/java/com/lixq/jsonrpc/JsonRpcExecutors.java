@@ -0,0 +1,70 @@
+package com.lixq.jsonrpc;
+
+import com.lixq.jsonrpc.core.JsonRpcExecutionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 业务线程池工厂
+ */
+public final class JsonRpcExecutors {
+    private static final Logger log = LoggerFactory.getLogger(JsonRpcExecutors.class);
+
+    private JsonRpcExecutors() {
+    }
+
+    /**
+     * 根据执行模式创建业务执行器，INLINE 模式返回 null，表示直接在 I/O 线程上执行
+     */
+    public static ExecutorService create(JsonRpcExecutionMode mode, int threads, int queueCapacity) {
+        switch (mode) {
+            case INLINE:
+                return null;
+            case VIRTUAL:
+                ExecutorService virtual = newVirtualThreadExecutor();
+                if (virtual != null) {
+                    return virtual;
+                }
+                log.warn("Virtual threads are not available on this JVM, falling back to a bounded pool");
+                return newBoundedPool(threads, queueCapacity);
+            case POOL:
+            default:
+                return newBoundedPool(threads, queueCapacity);
+        }
+    }
+
+    /**
+     * 固定大小、有界队列的线程池，队列满时抛出 RejectedExecutionException
+     */
+    public static ExecutorService newBoundedPool(int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, "jsonrpc-dispatch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器，编译目标仍保持 Java 8
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.lixq.jsonrpc;
+
+import com.lixq.jsonrpc.core.JsonRpcFraming;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.DelimiterBasedFrameDecoder;
+import io.netty.handler.codec.Delimiters;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.AttributeKey;
+
+import java.util.List;
+
+/**
+ * 分帧工具
+ * 按配置创建帧解码器，并在 Channel 属性中记录连接实际使用的分帧方式，供编码响应时使用
+ */
+public final class JsonRpcFrames {
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 1024 * 1024;
+    public static final int LENGTH_FIELD_SIZE = 4;
+
+    private static final AttributeKey<JsonRpcFraming> FRAMING = AttributeKey.valueOf("jsonrpc.framing");
+    private static final AttributeKey<Boolean> MESSAGE_ORIENTED = AttributeKey.valueOf("jsonrpc.messageOriented");
+    private static final String DECODER_NAME = "frameDecoder";
+
+    private JsonRpcFrames() {
+    }
+
+    /**
+     * 为 Channel 添加帧解码器；AUTO 模式先添加识别器，收到首个字节后替换为对应的解码器
+     */
+    public static void addDecoder(Channel channel, JsonRpcFraming framing, int maxFrameLength) {
+        if (framing == JsonRpcFraming.AUTO) {
+            channel.pipeline().addLast(DECODER_NAME, new FramingDetector(maxFrameLength));
+        } else {
+            channel.attr(FRAMING).set(framing);
+            channel.pipeline().addLast(DECODER_NAME, newDecoder(framing, maxFrameLength));
+        }
+    }
+
+    /**
+     * 连接使用的分帧方式，尚未识别时为 LINE
+     */
+    public static JsonRpcFraming framing(Channel channel) {
+        JsonRpcFraming framing = channel.attr(FRAMING).get();
+        return framing != null ? framing : JsonRpcFraming.LINE;
+    }
+
+    /**
+     * 标记连接的消息边界由传输层保证（如 WebSocket），响应与推送不再添加换行符或长度字段
+     */
+    public static void markMessageOriented(Channel channel) {
+        channel.attr(MESSAGE_ORIENTED).set(Boolean.TRUE);
+    }
+
+    public static boolean isMessageOriented(Channel channel) {
+        return Boolean.TRUE.equals(channel.attr(MESSAGE_ORIENTED).get());
+    }
+
+    /**
+     * 创建帧解码器，输出的帧不含换行符或长度字段
+     */
+    public static ChannelHandler newDecoder(JsonRpcFraming framing, int maxFrameLength) {
+        if (framing == JsonRpcFraming.LENGTH_PREFIXED) {
+            return new LengthFieldBasedFrameDecoder(maxFrameLength, 0, LENGTH_FIELD_SIZE, 0, LENGTH_FIELD_SIZE);
+        }
+        return new DelimiterBasedFrameDecoder(maxFrameLength, Delimiters.lineDelimiter());
+    }
+
+    /**
+     * JSON 文本只能以空白、'{' 或 '[' 开头，其余首字节视为长度字段
+     */
+    private static boolean isJsonStart(byte b) {
+        return b == '{' || b == '[' || b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    /**
+     * 按首字节识别分帧方式，识别后用对应的解码器替换自身，已缓存的字节交给新解码器继续处理
+     */
+    private static class FramingDetector extends ByteToMessageDecoder {
+        private final int maxFrameLength;
+
+        FramingDetector(int maxFrameLength) {
+            this.maxFrameLength = maxFrameLength;
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            if (!in.isReadable()) {
+                return;
+            }
+            JsonRpcFraming framing = isJsonStart(in.getByte(in.readerIndex()))
+                ? JsonRpcFraming.LINE : JsonRpcFraming.LENGTH_PREFIXED;
+            ctx.channel().attr(FRAMING).set(framing);
+            ctx.pipeline().replace(this, DECODER_NAME, newDecoder(framing, maxFrameLength));
+        }
+    }
+}
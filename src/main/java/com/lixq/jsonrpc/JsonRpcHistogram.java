@@ -0,0 +1,136 @@
+package com.lixq.jsonrpc;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的延迟直方图（纳秒），按 HdrHistogram 的对数-线性方式分桶：
+ * 小于 64 的值每个值一个桶，此后每个 2 的幂区间再均分为 32 个桶，相对误差不超过 1/32，
+ * 可记录的最大值约 18 分钟（2^40 纳秒），更大的值记入最后一个桶。
+ * 计数按线程分散到若干条带上，记录时只做一次原子自增，读取时再合并各条带
+ */
+public class JsonRpcHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_VALUE_BITS = 40;
+    private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS;
+    private static final int MAX_STRIPES = 4;
+
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public JsonRpcHistogram() {
+        // 条带数为不小于 CPU 数的 2 的幂，至多 MAX_STRIPES
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int n = Math.min(MAX_STRIPES, cpus <= 1 ? 1 : Integer.highestOneBit(cpus - 1) << 1);
+        stripes = new AtomicLongArray[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new AtomicLongArray(BUCKET_COUNT);
+        }
+        stripeMask = n - 1;
+    }
+
+    /**
+     * 记录一个值，负值按 0 记录
+     */
+    public void record(long nanos) {
+        long value = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+        stripes[(int) Thread.currentThread().getId() & stripeMask].getAndIncrement(bucketIndex(value));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    static int bucketIndex(long value) {
+        // 保留最高的 SUB_BUCKET_BITS + 1 位，右移的位数即所在的 2 的幂区间
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * 桶内的最大值
+     */
+    static long highestValueInBucket(int index) {
+        int shift = Math.max(0, (index >> SUB_BUCKET_BITS) - 1);
+        long mantissa = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 所有记录值之和（纳秒）
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    /**
+     * 百分位数（纳秒），percentile 取值 0 ~ 100；返回所在桶的最大值，不超过记录过的最大值
+     */
+    public long getValueAtPercentile(double percentile) {
+        return getValuesAtPercentiles(percentile)[0];
+    }
+
+    /**
+     * 一次合并各条带，计算多个百分位数
+     */
+    public long[] getValuesAtPercentiles(double... percentiles) {
+        long[] counts = new long[BUCKET_COUNT];
+        long n = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long c = stripe.get(i);
+                counts[i] += c;
+                n += c;
+            }
+        }
+        long[] values = new long[percentiles.length];
+        if (n == 0) {
+            return values;
+        }
+        long observedMax = max.get();
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentiles[p])) / 100 * n));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    values[p] = Math.min(highestValueInBucket(i), observedMax);
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 清空所有记录，与并发的记录之间不保证原子性
+     */
+    public void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                stripe.set(i, 0);
+            }
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+}
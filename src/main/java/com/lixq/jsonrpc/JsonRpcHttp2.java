@@ -0,0 +1,245 @@
+package com.lixq.jsonrpc;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2Frame;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.util.ReferenceCountUtil;
+
+import javax.net.ssl.SSLException;
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * HTTP/2 传输工具
+ * 每个 JSON-RPC 调用占用一个独立的流，多个调用在同一连接上并发，响应按完成顺序返回，不存在队头阻塞；
+ * 服务端每个流的请求由 JsonRpcHttpCodec 处理，客户端每个流的响应交回连接上的 JsonRpcClientHandler 按 id 分发
+ */
+public final class JsonRpcHttp2 {
+    private static final CharSequence CONTENT_TYPE = "application/json";
+
+    private JsonRpcHttp2() {
+    }
+
+    /**
+     * 服务端 TLS 上下文，通过 ALPN 协商 h2，不支持时回退为 http/1.1
+     */
+    public static SslContext serverSslContext(File certificateChain, File privateKey) throws SSLException {
+        return SslContextBuilder.forServer(certificateChain, privateKey)
+            .applicationProtocolConfig(alpn(ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1))
+            .build();
+    }
+
+    /**
+     * 客户端 TLS 上下文，trustCertificates 为 null 时使用 JDK 默认信任库
+     */
+    public static SslContext clientSslContext(File trustCertificates) throws SSLException {
+        SslContextBuilder builder = SslContextBuilder.forClient()
+            .applicationProtocolConfig(alpn(ApplicationProtocolNames.HTTP_2));
+        if (trustCertificates != null) {
+            builder.trustManager(trustCertificates);
+        }
+        return builder.build();
+    }
+
+    private static ApplicationProtocolConfig alpn(String... protocols) {
+        return new ApplicationProtocolConfig(
+            ApplicationProtocolConfig.Protocol.ALPN,
+            ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+            ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+            protocols);
+    }
+
+    /**
+     * 服务端连接级帧编解码器
+     */
+    public static Http2FrameCodec newServerCodec(int maxConcurrentStreams) {
+        return Http2FrameCodecBuilder.forServer()
+            .initialSettings(Http2Settings.defaultSettings().maxConcurrentStreams(maxConcurrentStreams))
+            .build();
+    }
+
+    /**
+     * 客户端：添加连接级 HTTP/2 处理器（需位于 JsonRpcClientHandler 之前），ssl 为 null 时使用明文 h2c（prior knowledge）
+     */
+    public static void addClientHandlers(Channel channel, SslContext ssl, String host, int port) {
+        ChannelPipeline pipeline = channel.pipeline();
+        if (ssl != null) {
+            pipeline.addLast(ssl.newHandler(channel.alloc(), host, port));
+        }
+        // 超过服务端 SETTINGS_MAX_CONCURRENT_STREAMS 的流在本地排队，待其他流结束后再发出
+        pipeline.addLast(Http2FrameCodecBuilder.forClient()
+            .initialSettings(Http2Settings.defaultSettings().pushEnabled(false))
+            .encoderEnforceMaxConcurrentStreams(true)
+            .build());
+        pipeline.addLast(new Http2MultiplexHandler(new ChannelInboundHandlerAdapter()));
+        pipeline.addLast(new ConnectionFrameFilter());
+    }
+
+    /**
+     * 客户端：新开一个流发送请求体，响应交给 handler 按 id 分发；流建立失败、非 200 响应或流提前关闭时调用 onFailure
+     */
+    public static void writeRequest(Channel channel, String authority, boolean secure, ByteBuf body,
+                                    JsonRpcClientHandler handler, int maxContentLength, Consumer<Throwable> onFailure) {
+        new Http2StreamChannelBootstrap(channel)
+            .handler(new StreamResponseHandler(handler, maxContentLength, onFailure))
+            .open()
+            .addListener(f -> {
+                if (!f.isSuccess()) {
+                    ReferenceCountUtil.release(body);
+                    onFailure.accept(f.cause());
+                    return;
+                }
+                Http2StreamChannel stream = (Http2StreamChannel) f.getNow();
+                Http2Headers headers = new DefaultHttp2Headers()
+                    .method(HttpMethod.POST.asciiName())
+                    .path("/")
+                    .scheme(secure ? "https" : "http")
+                    .authority(authority);
+                headers.set(HttpHeaderNames.CONTENT_TYPE, CONTENT_TYPE);
+                headers.setInt(HttpHeaderNames.CONTENT_LENGTH, body.readableBytes());
+                stream.write(new DefaultHttp2HeadersFrame(headers));
+                stream.writeAndFlush(new DefaultHttp2DataFrame(body, true)).addListener(w -> {
+                    if (!w.isSuccess()) {
+                        onFailure.accept(w.cause());
+                    }
+                });
+            });
+    }
+
+    /**
+     * 丢弃多路复用处理器转交给连接管道的连接级帧（SETTINGS、PING 等），避免到达 JsonRpcClientHandler
+     */
+    @ChannelHandler.Sharable
+    private static class ConnectionFrameFilter extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof Http2Frame) {
+                ReferenceCountUtil.release(msg);
+            } else {
+                ctx.fireChannelRead(msg);
+            }
+        }
+    }
+
+    /**
+     * 单个流的响应处理器：累积 DATA 帧，流结束时将完整响应体交给 JsonRpcClientHandler
+     */
+    private static class StreamResponseHandler extends ChannelInboundHandlerAdapter {
+        private final JsonRpcClientHandler handler;
+        private final int maxContentLength;
+        private final Consumer<Throwable> onFailure;
+        private CompositeByteBuf body;
+        private boolean done;
+
+        StreamResponseHandler(JsonRpcClientHandler handler, int maxContentLength, Consumer<Throwable> onFailure) {
+            this.handler = handler;
+            this.maxContentLength = maxContentLength;
+            this.onFailure = onFailure;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            try {
+                if (done) {
+                    return;
+                }
+                if (msg instanceof Http2HeadersFrame) {
+                    Http2HeadersFrame frame = (Http2HeadersFrame) msg;
+                    CharSequence status = frame.headers().status();
+                    if (status != null && !HttpResponseStatus.OK.codeAsText().contentEquals(status)) {
+                        fail(ctx, new IllegalStateException("JSON-RPC HTTP/2 request failed with status " + status));
+                    } else if (frame.isEndStream()) {
+                        finish();
+                    }
+                } else if (msg instanceof Http2DataFrame) {
+                    Http2DataFrame frame = (Http2DataFrame) msg;
+                    if (body == null) {
+                        body = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+                    }
+                    if (body.readableBytes() + frame.content().readableBytes() > maxContentLength) {
+                        fail(ctx, new IllegalStateException("JSON-RPC HTTP/2 response exceeds " + maxContentLength + " bytes"));
+                        return;
+                    }
+                    body.addComponent(true, frame.content().retain());
+                    if (frame.isEndStream()) {
+                        finish();
+                    }
+                }
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        private void finish() {
+            done = true;
+            CompositeByteBuf response = body;
+            body = null;
+            if (response == null || !response.isReadable()) {
+                ReferenceCountUtil.release(response);
+                onFailure.accept(new IllegalStateException("Empty JSON-RPC HTTP/2 response"));
+                return;
+            }
+            try {
+                handler.readResponses(response);
+            } catch (IOException e) {
+                onFailure.accept(e);
+            }
+        }
+
+        private void fail(ChannelHandlerContext ctx, Throwable cause) {
+            done = true;
+            releaseBody();
+            onFailure.accept(cause);
+            ctx.close();
+        }
+
+        private void releaseBody() {
+            if (body != null) {
+                body.release();
+                body = null;
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            if (!done) {
+                fail(ctx, new IllegalStateException("HTTP/2 stream closed before a JSON-RPC response was received"));
+            }
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            if (!done) {
+                fail(ctx, cause);
+            } else {
+                ctx.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.lixq.jsonrpc;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HTTP/1.1 传输编解码器，位于 HttpServerCodec 之后
+ * 入站：POST 请求体按块累积到 CompositeByteBuf（上限为 maxFrameLength，不复制、不受 HttpObjectAggregator 限制），
+ * 完整后以 Exchange 交给 JsonRpcServerHandler；
+ * 出站：处理器写回 Response，按请求到达顺序组装 FullHttpResponse，支持持久连接与请求流水线。
+ * 未完成的流水线请求达到上限时暂停读取，写出后恢复
+ */
+public class JsonRpcHttpCodec extends ChannelDuplexHandler {
+    public static final int DEFAULT_MAX_PIPELINED_REQUESTS = 64;
+
+    private static final String CONTENT_TYPE = "application/json";
+
+    private final int maxContentLength;
+    private final int maxPipelinedRequests;
+
+    // 以下状态只在 EventLoop 上访问
+    private CompositeByteBuf body;
+    private boolean keepAlive;
+    // 当前请求已被拒绝，丢弃剩余的请求体
+    private boolean discarding;
+    // 已有请求被拒绝，连接将在其响应写出后关闭，后续请求全部丢弃
+    private boolean closing;
+    // 下一个入站请求的序号 / 下一个应写出的响应序号
+    private long nextSequence;
+    private long nextToWrite;
+    // 先于前序请求完成的响应
+    private final Map<Long, PendingResponse> completed = new HashMap<>();
+
+    public JsonRpcHttpCodec(int maxContentLength) {
+        this(maxContentLength, DEFAULT_MAX_PIPELINED_REQUESTS);
+    }
+
+    public JsonRpcHttpCodec(int maxContentLength, int maxPipelinedRequests) {
+        this.maxContentLength = maxContentLength;
+        this.maxPipelinedRequests = Math.max(1, maxPipelinedRequests);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            startRequest(ctx, (HttpRequest) msg);
+        }
+        if (msg instanceof HttpContent) {
+            appendContent(ctx, (HttpContent) msg);
+        } else {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    private void startRequest(ChannelHandlerContext ctx, HttpRequest request) {
+        releaseBody();
+        keepAlive = HttpUtil.isKeepAlive(request);
+        discarding = closing;
+        if (closing) {
+            return;
+        }
+        if (request.decoderResult().isFailure()) {
+            reject(ctx, HttpResponseStatus.BAD_REQUEST);
+        } else if (!HttpMethod.POST.equals(request.method())) {
+            reject(ctx, HttpResponseStatus.METHOD_NOT_ALLOWED);
+        } else if (HttpUtil.getContentLength(request, -1L) > maxContentLength) {
+            reject(ctx, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+        } else {
+            body = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+        }
+    }
+
+    private void appendContent(ChannelHandlerContext ctx, HttpContent content) {
+        if (discarding || body == null) {
+            content.release();
+            return;
+        }
+        if (body.readableBytes() + content.content().readableBytes() > maxContentLength) {
+            content.release();
+            releaseBody();
+            reject(ctx, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        // 直接引用各个分块，不复制请求体
+        body.addComponent(true, content.content());
+        if (content instanceof LastHttpContent) {
+            CompositeByteBuf request = body;
+            body = null;
+            Exchange exchange = new Exchange(nextSequence++, keepAlive, request);
+            pauseIfSaturated(ctx);
+            ctx.fireChannelRead(exchange);
+        }
+    }
+
+    /**
+     * 拒绝当前请求：错误响应同样按序写出，之后关闭连接
+     */
+    private void reject(ChannelHandlerContext ctx, HttpResponseStatus status) {
+        discarding = true;
+        closing = true;
+        keepAlive = false;
+        long sequence = nextSequence++;
+        pauseIfSaturated(ctx);
+        complete(ctx, sequence, new PendingResponse(newResponse(status, Unpooled.EMPTY_BUFFER), false, ctx.newPromise()));
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!(msg instanceof Response)) {
+            ctx.write(msg, promise);
+            return;
+        }
+        Response response = (Response) msg;
+        ByteBuf content = response.content();
+        FullHttpResponse httpResponse = content.isReadable()
+            ? newResponse(HttpResponseStatus.OK, content)
+            : newResponse(HttpResponseStatus.NO_CONTENT, content);
+        if (content.isReadable()) {
+            httpResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, CONTENT_TYPE);
+        }
+        complete(ctx, response.sequence, new PendingResponse(httpResponse, response.keepAlive, promise));
+    }
+
+    /**
+     * 记录已完成的响应，并写出从 nextToWrite 开始连续可写的响应
+     */
+    private void complete(ChannelHandlerContext ctx, long sequence, PendingResponse response) {
+        if (sequence != nextToWrite) {
+            completed.put(sequence, response);
+            return;
+        }
+        boolean closed = false;
+        PendingResponse next = response;
+        while (next != null) {
+            nextToWrite++;
+            if (closed) {
+                // 连接已决定关闭，后续响应不再写出
+                ReferenceCountUtil.release(next.response);
+                next.promise.tryFailure(new IllegalStateException("HTTP connection closed"));
+            } else {
+                if (next.keepAlive) {
+                    HttpUtil.setKeepAlive(next.response, true);
+                } else {
+                    next.response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+                }
+                if (next.keepAlive) {
+                    ctx.write(next.response, next.promise);
+                } else {
+                    // 写出后关闭连接（HTTP/2 下为关闭该流）
+                    ChannelPromise promise = next.promise.unvoid();
+                    ctx.writeAndFlush(next.response, promise);
+                    promise.addListener(ChannelFutureListener.CLOSE);
+                    closed = true;
+                }
+            }
+            next = completed.remove(nextToWrite);
+        }
+        if (!closed) {
+            ctx.flush();
+            resumeIfDrained(ctx);
+        }
+    }
+
+    private FullHttpResponse newResponse(HttpResponseStatus status, ByteBuf content) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content);
+        // 204 响应不能带 Content-Length（RFC 9110 §8.6）
+        if (status.code() != HttpResponseStatus.NO_CONTENT.code()) {
+            HttpUtil.setContentLength(response, content.readableBytes());
+        }
+        return response;
+    }
+
+    private void pauseIfSaturated(ChannelHandlerContext ctx) {
+        if (nextSequence - nextToWrite >= maxPipelinedRequests) {
+            ctx.channel().config().setAutoRead(false);
+        }
+    }
+
+    private void resumeIfDrained(ChannelHandlerContext ctx) {
+        if (!ctx.channel().config().isAutoRead() && nextSequence - nextToWrite < maxPipelinedRequests) {
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    private void releaseBody() {
+        if (body != null) {
+            body.release();
+            body = null;
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        releaseBody();
+        for (PendingResponse response : completed.values()) {
+            ReferenceCountUtil.release(response.response);
+        }
+        completed.clear();
+    }
+
+    /**
+     * 一个完整的 HTTP 请求体及其在连接中的序号
+     */
+    public static class Exchange extends DefaultByteBufHolder {
+        private final long sequence;
+        private final boolean keepAlive;
+
+        Exchange(long sequence, boolean keepAlive, ByteBuf content) {
+            super(content);
+            this.sequence = sequence;
+            this.keepAlive = keepAlive;
+        }
+
+        /**
+         * 创建该请求的响应，content 不可读时返回 204 No Content
+         */
+        public Response response(ByteBuf content) {
+            return new Response(sequence, keepAlive, content);
+        }
+    }
+
+    /**
+     * 处理器写回的响应体
+     */
+    public static class Response extends DefaultByteBufHolder {
+        private final long sequence;
+        private final boolean keepAlive;
+
+        Response(long sequence, boolean keepAlive, ByteBuf content) {
+            super(content);
+            this.sequence = sequence;
+            this.keepAlive = keepAlive;
+        }
+    }
+
+    private static class PendingResponse {
+        private final FullHttpResponse response;
+        private final boolean keepAlive;
+        private final ChannelPromise promise;
+
+        PendingResponse(FullHttpResponse response, boolean keepAlive, ChannelPromise promise) {
+            this.response = response;
+            this.keepAlive = keepAlive;
+            this.promise = promise;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.lixq.jsonrpc;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LOCAL 协议的进程内绑定表
+ * 服务端启动时以名称注册处理器，同一 JVM 内的客户端按名称查找后直接提交 RpcRequest 对象，
+ * 参数与结果都以 Java 对象传递，不经过分帧、编码与网络
+ */
+public final class JsonRpcLocal {
+    public static final String DEFAULT_NAME = "jsonrpc";
+
+    private static final Map<String, JsonRpcServerHandler> BINDINGS = new ConcurrentHashMap<>();
+
+    private JsonRpcLocal() {
+    }
+
+    /**
+     * 绑定名称，名称已被其他服务端占用时抛出 IllegalStateException
+     */
+    static void bind(String name, JsonRpcServerHandler handler) {
+        if (BINDINGS.putIfAbsent(name, handler) != null) {
+            throw new IllegalStateException("Local JSON-RPC endpoint already bound: " + address(name));
+        }
+    }
+
+    /**
+     * 解除绑定，只解除由 handler 自身注册的绑定
+     */
+    static void unbind(String name, JsonRpcServerHandler handler) {
+        BINDINGS.remove(name, handler);
+    }
+
+    /**
+     * 查找名称对应的服务端处理器，未绑定时返回 null
+     */
+    static JsonRpcServerHandler lookup(String name) {
+        return BINDINGS.get(name);
+    }
+
+    /**
+     * 日志中使用的端点描述
+     */
+    static String address(String name) {
+        return "local:" + name;
+    }
+}
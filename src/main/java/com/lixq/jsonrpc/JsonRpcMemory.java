@@ -0,0 +1,109 @@
+package com.lixq.jsonrpc;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * 按地址读写共享内存，提供跨进程同步所需的 volatile / 有序写与 CAS 语义。
+ * Java 8 没有 VarHandle，这些操作只能通过 sun.misc.Unsafe 完成；为避免编译期引用内部 API，
+ * Unsafe 在运行时反射获取，各方法以绑定到 Unsafe 实例的 MethodHandle 调用，
+ * MethodHandle 为 static final 常量，JIT 编译后与直接调用 Unsafe 相同。
+ * 普通读写与 int 的 volatile 读、有序写直接使用 Netty 的 PlatformDependent
+ */
+final class JsonRpcMemory {
+    private static final MethodHandle GET_LONG_VOLATILE;
+    private static final MethodHandle PUT_LONG_VOLATILE;
+    private static final MethodHandle PUT_LONG_ORDERED;
+    private static final MethodHandle PUT_INT_VOLATILE;
+    private static final MethodHandle COMPARE_AND_SWAP_INT;
+
+    static {
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            GET_LONG_VOLATILE = lookup.findVirtual(type, "getLongVolatile",
+                MethodType.methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+            PUT_LONG_VOLATILE = lookup.findVirtual(type, "putLongVolatile",
+                MethodType.methodType(void.class, Object.class, long.class, long.class)).bindTo(unsafe);
+            PUT_LONG_ORDERED = lookup.findVirtual(type, "putOrderedLong",
+                MethodType.methodType(void.class, Object.class, long.class, long.class)).bindTo(unsafe);
+            PUT_INT_VOLATILE = lookup.findVirtual(type, "putIntVolatile",
+                MethodType.methodType(void.class, Object.class, long.class, int.class)).bindTo(unsafe);
+            COMPARE_AND_SWAP_INT = lookup.findVirtual(type, "compareAndSwapInt",
+                MethodType.methodType(boolean.class, Object.class, long.class, int.class, int.class)).bindTo(unsafe);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private JsonRpcMemory() {
+    }
+
+    static int getInt(long address) {
+        return PlatformDependent.getInt(address);
+    }
+
+    static void putInt(long address, int value) {
+        PlatformDependent.putInt(address, value);
+    }
+
+    static int getIntVolatile(long address) {
+        return PlatformDependent.getIntVolatile(address);
+    }
+
+    static void putIntVolatile(long address, int value) {
+        try {
+            PUT_INT_VOLATILE.invokeExact((Object) null, address, value);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static boolean compareAndSwapInt(long address, int expect, int update) {
+        try {
+            return (boolean) COMPARE_AND_SWAP_INT.invokeExact((Object) null, address, expect, update);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static long getLongVolatile(long address) {
+        try {
+            return (long) GET_LONG_VOLATILE.invokeExact((Object) null, address);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void putLongVolatile(long address, long value) {
+        try {
+            PUT_LONG_VOLATILE.invokeExact((Object) null, address, value);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * release 语义的写，之前的写对以 volatile 读到该值的一端可见
+     */
+    static void putLongOrdered(long address, long value) {
+        try {
+            PUT_LONG_ORDERED.invokeExact((Object) null, address, value);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        // Unsafe 的这些方法不会抛出受检异常
+        PlatformDependent.throwException(t);
+        return new IllegalStateException(t);
+    }
+}
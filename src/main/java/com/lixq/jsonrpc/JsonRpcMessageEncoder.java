@@ -0,0 +1,191 @@
+package com.lixq.jsonrpc;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lixq.jsonrpc.core.JsonRpcFraming;
+import com.lixq.jsonrpc.core.RpcErrorEnums;
+import com.lixq.jsonrpc.core.RpcResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JSON-RPC 消息编码器
+ * 通过 JsonGenerator 将请求/响应直接写入池化的直接内存 ByteBuf，并原地追加换行分隔符或回填长度字段，
+ * 不再生成中间 String；RpcErrorEnums 对应的固定错误响应体预先序列化，只需写入 id；
+ * 结果缓存命中的响应直接拼接缓存的 JSON 结果字节
+ */
+public class JsonRpcMessageEncoder {
+    private static final byte DELIMITER = '\n';
+    private static final String JSONRPC_VERSION = "2.0";
+    private static final SerializableString NULL_ID_SUFFIX = new SerializedString("null}");
+    private static final byte[] CACHED_RESULT_PREFIX = ("{\"jsonrpc\":\"" + JSONRPC_VERSION + "\",\"result\":").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ID_FIELD = ",\"id\":".getBytes(StandardCharsets.UTF_8);
+
+    // 以错误码索引的预序列化错误体前缀：{"jsonrpc":"2.0","error":{"code":..,"message":".."},"id":
+    private static final Map<Integer, FixedError> FIXED_ERRORS = new HashMap<>();
+
+    static {
+        JsonStringEncoder stringEncoder = JsonStringEncoder.getInstance();
+        for (RpcErrorEnums error : RpcErrorEnums.values()) {
+            String prefix = "{\"jsonrpc\":\"" + JSONRPC_VERSION + "\",\"error\":{\"code\":" + error.getCode()
+                + ",\"message\":\"" + new String(stringEncoder.quoteAsString(error.getMessage())) + "\"},\"id\":";
+            FIXED_ERRORS.put(error.getCode(), new FixedError(error.getMessage(), new SerializedString(prefix)));
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    // 预序列化的错误体为 JSON 文本，仅在文本 JSON 格式下使用
+    private final boolean preserializedErrors;
+
+    public JsonRpcMessageEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.preserializedErrors = JsonFactory.FORMAT_NAME_JSON.equals(objectMapper.getFactory().getFormatName());
+    }
+
+    /**
+     * 编码为以换行符结尾的一帧
+     */
+    public ByteBuf encode(ByteBufAllocator allocator, Object message) throws IOException {
+        return encode(allocator, message, JsonRpcFraming.LINE);
+    }
+
+    /**
+     * 按分帧方式编码为完整的一帧：换行分帧在末尾追加换行符，长度前缀分帧先预留长度字段，写完后原地回填
+     */
+    public ByteBuf encode(ByteBufAllocator allocator, Object message, JsonRpcFraming framing) throws IOException {
+        ByteBuf buf = allocator.ioBuffer();
+        boolean success = false;
+        try {
+            if (framing == JsonRpcFraming.LENGTH_PREFIXED) {
+                int start = buf.writerIndex();
+                buf.writeInt(0);
+                write(buf, message);
+                buf.setInt(start, buf.writerIndex() - start - JsonRpcFrames.LENGTH_FIELD_SIZE);
+            } else {
+                write(buf, message);
+                buf.writeByte(DELIMITER);
+            }
+            success = true;
+            return buf;
+        } finally {
+            if (!success) {
+                buf.release();
+            }
+        }
+    }
+
+    /**
+     * 只编码消息本身，不加分隔符或长度字段（用于组装批量帧）
+     */
+    public ByteBuf encodeBody(ByteBufAllocator allocator, Object message) throws IOException {
+        ByteBuf buf = allocator.ioBuffer();
+        boolean success = false;
+        try {
+            write(buf, message);
+            success = true;
+            return buf;
+        } finally {
+            if (!success) {
+                buf.release();
+            }
+        }
+    }
+
+    private void write(ByteBuf buf, Object message) throws IOException {
+        if (preserializedErrors && message instanceof RpcResponse && writeCachedResponse(buf, (RpcResponse) message)) {
+            return;
+        }
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator((OutputStream) new ByteBufOutputStream(buf))) {
+            writeMessage(generator, message);
+        }
+    }
+
+    private void writeMessage(JsonGenerator generator, Object message) throws IOException {
+        if (message instanceof RpcResponse) {
+            writeResponse(generator, (RpcResponse) message);
+        } else if (message instanceof Collection) {
+            generator.writeStartArray();
+            for (Object element : (Collection<?>) message) {
+                writeMessage(generator, element);
+            }
+            generator.writeEndArray();
+        } else {
+            objectMapper.writeValue(generator, message);
+        }
+    }
+
+    private void writeResponse(JsonGenerator generator, RpcResponse response) throws IOException {
+        FixedError fixed = preserializedErrors ? fixedError(response) : null;
+        if (fixed == null) {
+            objectMapper.writeValue(generator, response);
+            return;
+        }
+        generator.writeRawValue(fixed.prefix);
+        String id = response.getId();
+        if (id == null) {
+            generator.writeRaw(NULL_ID_SUFFIX);
+        } else {
+            generator.writeRaw('"');
+            char[] quoted = JsonStringEncoder.getInstance().quoteAsString(id);
+            generator.writeRaw(quoted, 0, quoted.length);
+            generator.writeRaw("\"}");
+        }
+    }
+
+    /**
+     * 结果来自结果缓存的响应直接拼接缓存的 JSON 字节：{"jsonrpc":"2.0","result":<缓存结果>,"id":<id>}
+     */
+    private static boolean writeCachedResponse(ByteBuf buf, RpcResponse response) {
+        if (!(response.getResult() instanceof JsonRpcResultCache.CachedResult) || response.getError() != null
+            || !JSONRPC_VERSION.equals(response.getJsonrpc())) {
+            return false;
+        }
+        buf.writeBytes(CACHED_RESULT_PREFIX);
+        buf.writeBytes(((JsonRpcResultCache.CachedResult) response.getResult()).getJson());
+        buf.writeBytes(ID_FIELD);
+        String id = response.getId();
+        if (id == null) {
+            buf.writeBytes(NULL_ID_SUFFIX.asUnquotedUTF8());
+        } else {
+            buf.writeByte('"');
+            buf.writeBytes(JsonStringEncoder.getInstance().quoteAsUTF8(id));
+            buf.writeByte('"').writeByte('}');
+        }
+        return true;
+    }
+
+    /**
+     * 无 result、无 data 且错误码与消息均与 RpcErrorEnums 一致的响应可使用预序列化的错误体
+     */
+    private static FixedError fixedError(RpcResponse response) {
+        RpcResponse.RpcError error = response.getError();
+        if (error == null || error.getData() != null || response.getResult() != null
+            || !JSONRPC_VERSION.equals(response.getJsonrpc())) {
+            return null;
+        }
+        FixedError fixed = FIXED_ERRORS.get(error.getCode());
+        return fixed != null && fixed.message.equals(error.getMessage()) ? fixed : null;
+    }
+
+    private static class FixedError {
+        private final String message;
+        private final SerializableString prefix;
+
+        FixedError(String message, SerializableString prefix) {
+            this.message = message;
+            this.prefix = prefix;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.lixq.jsonrpc;
+
+import com.lixq.jsonrpc.core.RpcErrorEnums;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 将 JsonRpcMetrics 注册到 Micrometer（需要 micrometer-core）
+ * 指标按需读取 JsonRpcMetrics 中的计数，不重复记录；之后才出现调用的方法在首次调用时注册。
+ * 延迟分位数为服务启动（或 reset）以来的累计值
+ */
+public class JsonRpcMeterBinder implements MeterBinder {
+    private static final String PREFIX = "jsonrpc.server.";
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final JsonRpcMetrics metrics;
+    private final Tags tags;
+
+    public JsonRpcMeterBinder(JsonRpcMetrics metrics) {
+        this(metrics, Tags.empty());
+    }
+
+    public JsonRpcMeterBinder(JsonRpcMetrics metrics, Iterable<Tag> tags) {
+        this.metrics = metrics;
+        this.tags = Tags.of(tags);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(PREFIX + "bytes.received", metrics, JsonRpcMetrics::getBytesIn)
+            .tags(tags).baseUnit("bytes").description("JSON-RPC request bytes received")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "bytes.sent", metrics, JsonRpcMetrics::getBytesOut)
+            .tags(tags).baseUnit("bytes").description("JSON-RPC response bytes sent")
+            .register(registry);
+        metrics.forEachMethod(method -> bindMethod(registry, method));
+    }
+
+    private void bindMethod(MeterRegistry registry, JsonRpcMetrics.MethodMetrics method) {
+        Tags methodTags = tags.and("method", method.getName());
+        FunctionCounter.builder(PREFIX + "calls", method, JsonRpcMetrics.MethodMetrics::getCalls)
+            .tags(methodTags).description("Completed JSON-RPC calls")
+            .register(registry);
+        for (RpcErrorEnums error : RpcErrorEnums.values()) {
+            FunctionCounter.builder(PREFIX + "errors", method, m -> m.getErrors(error))
+                .tags(methodTags.and("code", String.valueOf(error.getCode()))).description("JSON-RPC error responses")
+                .register(registry);
+        }
+        FunctionCounter.builder(PREFIX + "errors", method, JsonRpcMetrics.MethodMetrics::getOtherErrors)
+            .tags(methodTags.and("code", "other")).description("JSON-RPC error responses")
+            .register(registry);
+        Gauge.builder(PREFIX + "in.flight", method, JsonRpcMetrics.MethodMetrics::getInFlight)
+            .tags(methodTags).description("JSON-RPC calls being processed")
+            .register(registry);
+
+        JsonRpcHistogram latency = method.getLatency();
+        FunctionTimer.builder(PREFIX + "latency", latency, JsonRpcHistogram::getCount,
+                JsonRpcHistogram::getTotal, TimeUnit.NANOSECONDS)
+            .tags(methodTags).description("JSON-RPC call processing time")
+            .register(registry);
+        TimeGauge.builder(PREFIX + "latency.max", latency, TimeUnit.NANOSECONDS, JsonRpcHistogram::getMax)
+            .tags(methodTags)
+            .register(registry);
+        for (double quantile : QUANTILES) {
+            TimeGauge.builder(PREFIX + "latency.percentile", latency, TimeUnit.NANOSECONDS,
+                    h -> h.getValueAtPercentile(quantile * 100))
+                .tags(methodTags.and("quantile", String.valueOf(quantile)))
+                .register(registry);
+        }
+    }
+}
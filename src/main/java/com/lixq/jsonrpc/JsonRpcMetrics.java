@@ -0,0 +1,288 @@
+package com.lixq.jsonrpc;
+
+import com.lixq.jsonrpc.core.RpcErrorEnums;
+import com.lixq.jsonrpc.core.RpcResponse;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 服务端指标：按方法统计调用数、按错误码统计错误数、正在处理的调用数与处理延迟，另有收发的字节数。
+ * 记录只使用 LongAdder 与无锁直方图，读取时再汇总；
+ * 只为已注册的方法与内置方法单独统计，其余方法名（如不存在的方法）统一记入 UNKNOWN_METHOD，避免方法名无限增长
+ */
+public class JsonRpcMetrics {
+    /**
+     * 内置的指标查询方法，结果为 snapshot()
+     */
+    public static final String METRICS_METHOD = "rpc.metrics";
+    public static final String UNKNOWN_METHOD = "<unknown>";
+
+    private static final RpcErrorEnums[] ERRORS = RpcErrorEnums.values();
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+
+    private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+    private final MethodMetrics unknown = new MethodMetrics(UNKNOWN_METHOD);
+    private final List<Consumer<MethodMetrics>> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    /**
+     * 方法的指标，known 为 false 或方法名为 null 时返回 UNKNOWN_METHOD 的指标
+     */
+    MethodMetrics method(String name, boolean known) {
+        if (!known || name == null) {
+            return unknown;
+        }
+        MethodMetrics metrics = methods.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        MethodMetrics created = new MethodMetrics(name);
+        metrics = methods.putIfAbsent(name, created);
+        if (metrics != null) {
+            return metrics;
+        }
+        for (Consumer<MethodMetrics> listener : listeners) {
+            listener.accept(created);
+        }
+        return created;
+    }
+
+    /**
+     * 对已有的及之后出现的每个方法的指标执行 action，用于向外部监控系统注册指标；
+     * 并发出现的方法可能被执行两次，action 需可重复执行
+     */
+    public void forEachMethod(Consumer<MethodMetrics> action) {
+        listeners.add(action);
+        action.accept(unknown);
+        for (MethodMetrics metrics : methods.values()) {
+            action.accept(metrics);
+        }
+    }
+
+    /**
+     * 按方法名排序的指标，UNKNOWN_METHOD 只在有过调用时出现
+     */
+    public Map<String, MethodMetrics> getMethods() {
+        Map<String, MethodMetrics> sorted = new TreeMap<>(methods);
+        if (unknown.getCalls() > 0 || unknown.getInFlight() > 0) {
+            sorted.put(UNKNOWN_METHOD, unknown);
+        }
+        return sorted;
+    }
+
+    void recordBytesIn(int bytes) {
+        bytesIn.add(bytes);
+    }
+
+    void recordBytesOut(int bytes) {
+        bytesOut.add(bytes);
+    }
+
+    /**
+     * 收到的请求帧字节数（解压后、不含分帧头）
+     */
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    /**
+     * 写出的响应帧字节数（含分帧头、压缩前）
+     */
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    public long getCalls() {
+        long calls = unknown.getCalls();
+        for (MethodMetrics metrics : methods.values()) {
+            calls += metrics.getCalls();
+        }
+        return calls;
+    }
+
+    public long getErrors() {
+        long errors = unknown.getErrors();
+        for (MethodMetrics metrics : methods.values()) {
+            errors += metrics.getErrors();
+        }
+        return errors;
+    }
+
+    public long getInFlight() {
+        long inFlight = unknown.getInFlight();
+        for (MethodMetrics metrics : methods.values()) {
+            inFlight += metrics.getInFlight();
+        }
+        return inFlight;
+    }
+
+    /**
+     * 清空所有计数与直方图，正在处理的调用数不受影响
+     */
+    public void reset() {
+        bytesIn.reset();
+        bytesOut.reset();
+        unknown.reset();
+        for (MethodMetrics metrics : methods.values()) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * 当前指标的快照，作为 rpc.metrics 的结果，延迟单位为微秒
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("calls", getCalls());
+        snapshot.put("errors", getErrors());
+        snapshot.put("inFlight", getInFlight());
+        snapshot.put("bytesIn", getBytesIn());
+        snapshot.put("bytesOut", getBytesOut());
+        Map<String, Object> methodSnapshots = new LinkedHashMap<>();
+        for (MethodMetrics metrics : getMethods().values()) {
+            methodSnapshots.put(metrics.getName(), metrics.snapshot());
+        }
+        snapshot.put("methods", methodSnapshots);
+        return snapshot;
+    }
+
+    /**
+     * 单个方法的指标
+     */
+    public static final class MethodMetrics {
+        private final String name;
+        private final LongAdder calls = new LongAdder();
+        // 按 RpcErrorEnums 的顺序计数，最后一项为其他错误码
+        private final LongAdder[] errors = new LongAdder[ERRORS.length + 1];
+        private final LongAdder inFlight = new LongAdder();
+        private final JsonRpcHistogram latency = new JsonRpcHistogram();
+
+        MethodMetrics(String name) {
+            this.name = name;
+            for (int i = 0; i < errors.length; i++) {
+                errors[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * 开始处理 calls 个调用，返回开始时间
+         */
+        long begin(int calls) {
+            inFlight.add(calls);
+            return System.nanoTime();
+        }
+
+        /**
+         * 一个由 begin 开始的调用处理完成
+         */
+        void end(long start, RpcResponse response) {
+            latency.record(System.nanoTime() - start);
+            inFlight.decrement();
+            record(response);
+        }
+
+        /**
+         * 记录一个未经处理即返回的响应（如 ServerBusy），不计入延迟
+         */
+        void record(RpcResponse response) {
+            calls.increment();
+            if (response != null && response.getError() != null) {
+                errors[errorIndex(response.getError().getCode())].increment();
+            }
+        }
+
+        private static int errorIndex(int code) {
+            for (int i = 0; i < ERRORS.length; i++) {
+                if (ERRORS[i].getCode() == code) {
+                    return i;
+                }
+            }
+            return ERRORS.length;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 已完成的调用数，包括返回错误的调用
+         */
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getErrors() {
+            long sum = 0;
+            for (LongAdder error : errors) {
+                sum += error.sum();
+            }
+            return sum;
+        }
+
+        public long getErrors(RpcErrorEnums error) {
+            return errors[error.ordinal()].sum();
+        }
+
+        /**
+         * 错误码不属于 RpcErrorEnums 的错误数
+         */
+        public long getOtherErrors() {
+            return errors[ERRORS.length].sum();
+        }
+
+        public long getInFlight() {
+            return inFlight.sum();
+        }
+
+        /**
+         * 从开始处理到生成响应的延迟（纳秒），不含排队与写出
+         */
+        public JsonRpcHistogram getLatency() {
+            return latency;
+        }
+
+        void reset() {
+            calls.reset();
+            for (LongAdder error : errors) {
+                error.reset();
+            }
+            latency.reset();
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("calls", getCalls());
+            Map<String, Long> errorCounts = new LinkedHashMap<>();
+            for (int i = 0; i < errors.length; i++) {
+                long count = errors[i].sum();
+                if (count > 0) {
+                    errorCounts.put(i < ERRORS.length ? String.valueOf(ERRORS[i].getCode()) : "other", count);
+                }
+            }
+            snapshot.put("errors", errorCounts);
+            snapshot.put("inFlight", getInFlight());
+            long[] values = latency.getValuesAtPercentiles(PERCENTILES);
+            Map<String, Object> latencyMicros = new LinkedHashMap<>();
+            latencyMicros.put("count", latency.getCount());
+            latencyMicros.put("mean", micros(latency.getMean()));
+            latencyMicros.put("p50", micros(values[0]));
+            latencyMicros.put("p99", micros(values[1]));
+            latencyMicros.put("p999", micros(values[2]));
+            latencyMicros.put("max", micros(latency.getMax()));
+            snapshot.put("latencyMicros", latencyMicros);
+            return snapshot;
+        }
+
+        private static double micros(double nanos) {
+            return Math.round(nanos / 100) / 10.0;
+        }
+    }
+}
@@ -1,10 +1,9 @@
 package com.lixq.jsonrpc;
 
+import com.lixq.jsonrpc.core.JsonRpcTransport;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
@@ -15,15 +14,24 @@ public class JsonRpcNettyServer {
     private static final int PORT = 8081;
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
+    private JsonRpcTransport transport = JsonRpcTransport.AUTO;
+
+    /**
+     * 设置传输实现，原生传输不可用时回退为 NIO
+     */
+    public void setTransport(JsonRpcTransport transport) {
+        this.transport = transport;
+    }
 
 //    @PostConstruct
     public void start() throws Exception {
         // 调整线程池大小
-        bossGroup = new NioEventLoopGroup(1);
-        workerGroup = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors() * 2);
+        JsonRpcTransports.Transport selected = JsonRpcTransports.resolve(transport);
+        bossGroup = selected.newEventLoopGroup(1);
+        workerGroup = selected.newEventLoopGroup(Runtime.getRuntime().availableProcessors() * 2);
         ServerBootstrap b = new ServerBootstrap();
         b.group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
+                .channel(selected.getServerChannelClass())
                 .childHandler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(SocketChannel ch) throws Exception {
@@ -33,7 +41,7 @@ public class JsonRpcNettyServer {
                         pipeline.addLast(new WebSocketServerProtocolHandler("/ws"));
                         pipeline.addLast(new StringDecoder());
                         pipeline.addLast(new StringEncoder());
-                        pipeline.addLast(new JsonRpcServerHandler());
+                        pipeline.addLast(new JsonRpcServerHandler(new JsonRpcServiceRegistry()));
                     }
                 })
                 .option(ChannelOption.SO_BACKLOG, 128)
@@ -0,0 +1,164 @@
+package com.lixq.jsonrpc;
+
+import com.lixq.jsonrpc.core.JsonRpcFraming;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 客户端请求微批处理器
+ * 在时间窗口内或达到数量阈值前收集同一连接上的请求，合并为一个 JSON-RPC 批量数组帧发送；
+ * 批量响应由 JsonRpcClientHandler 按 id 分发回各自的 Future
+ */
+public class JsonRpcRequestBatcher {
+    private static final ByteBuf BATCH_START = constant("[");
+    private static final ByteBuf SEPARATOR = constant(",");
+    private static final ByteBuf BATCH_END = constant("]");
+    private static final ByteBuf DELIMITER = constant("\n");
+
+    private final Channel channel;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final int maxFrameLength;
+    private final JsonRpcFraming framing;
+
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * @param windowMicros 收集窗口（微秒），0 表示在 EventLoop 下一次执行任务时立即发送已收集的请求
+     * @param maxBatchSize 单个批量帧的最大请求数，达到后立即发送
+     * @param maxFrameLength 单个批量帧的最大字节数，不超过服务端分帧解码器的上限
+     * @param framing 分帧方式
+     */
+    public JsonRpcRequestBatcher(Channel channel, long windowMicros, int maxBatchSize, int maxFrameLength, JsonRpcFraming framing) {
+        this.channel = channel;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxFrameLength = maxFrameLength;
+        this.framing = framing;
+    }
+
+    /**
+     * 加入一个已编码（不含分隔符）的请求，ByteBuf 的所有权转移给批处理器，写失败时回调 onFailure
+     */
+    public void add(ByteBuf request, Consumer<Throwable> onFailure) {
+        queue.offer(new Entry(request, onFailure));
+        try {
+            if (queued.incrementAndGet() >= maxBatchSize) {
+                channel.eventLoop().execute(this::flush);
+            } else if (flushScheduled.compareAndSet(false, true)) {
+                if (windowMicros > 0) {
+                    channel.eventLoop().schedule(this::flush, windowMicros, TimeUnit.MICROSECONDS);
+                } else {
+                    channel.eventLoop().execute(this::flush);
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            // EventLoop 已关闭，不会再有 flush 取走队列中的请求
+            flushScheduled.set(false);
+            fail(e);
+        }
+    }
+
+    /**
+     * 取出所有已收集的请求，释放其 ByteBuf 并回调 onFailure
+     */
+    private void fail(Throwable cause) {
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            queued.decrementAndGet();
+            entry.request.release();
+            entry.onFailure.accept(cause);
+        }
+    }
+
+    /**
+     * 在 EventLoop 上发送所有已收集的请求，按 maxBatchSize 与 maxFrameLength 切分为多帧，最后统一 flush
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        boolean written = false;
+        Entry entry = queue.poll();
+        while (entry != null) {
+            List<Entry> batch = new ArrayList<>(Math.min(queued.get(), maxBatchSize));
+            // 帧字节数按 '[' + 元素 + ',' + ']' 加上分隔符或长度字段计算
+            int length = framing == JsonRpcFraming.LENGTH_PREFIXED ? 2 + JsonRpcFrames.LENGTH_FIELD_SIZE : 3;
+            do {
+                batch.add(entry);
+                length += entry.request.readableBytes() + 1;
+                entry = queue.poll();
+            } while (entry != null && batch.size() < maxBatchSize && length + entry.request.readableBytes() + 1 <= maxFrameLength);
+            queued.addAndGet(-batch.size());
+            write(batch);
+            written = true;
+        }
+        if (written) {
+            channel.flush();
+        }
+    }
+
+    /**
+     * 以 CompositeByteBuf 拼接各请求与分隔符，不复制请求内容
+     */
+    private void write(List<Entry> batch) {
+        CompositeByteBuf frame = channel.alloc().compositeBuffer(batch.size() * 2 + 3);
+        if (framing == JsonRpcFraming.LENGTH_PREFIXED) {
+            frame.addComponent(true, channel.alloc().ioBuffer(JsonRpcFrames.LENGTH_FIELD_SIZE).writeInt(0));
+        }
+        if (batch.size() == 1) {
+            frame.addComponent(true, batch.get(0).request);
+        } else {
+            frame.addComponent(true, BATCH_START.duplicate());
+            for (int i = 0; i < batch.size(); i++) {
+                if (i > 0) {
+                    frame.addComponent(true, SEPARATOR.duplicate());
+                }
+                frame.addComponent(true, batch.get(i).request);
+            }
+            frame.addComponent(true, BATCH_END.duplicate());
+        }
+        if (framing == JsonRpcFraming.LENGTH_PREFIXED) {
+            frame.setInt(0, frame.readableBytes() - JsonRpcFrames.LENGTH_FIELD_SIZE);
+        } else {
+            frame.addComponent(true, DELIMITER.duplicate());
+        }
+
+        channel.write(frame).addListener((ChannelFutureListener) f -> {
+            if (!f.isSuccess()) {
+                for (Entry entry : batch) {
+                    entry.onFailure.accept(f.cause());
+                }
+            }
+        });
+    }
+
+    private static ByteBuf constant(String value) {
+        return Unpooled.unreleasableBuffer(Unpooled.directBuffer(value.length())
+            .writeBytes(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static class Entry {
+        private final ByteBuf request;
+        private final Consumer<Throwable> onFailure;
+
+        Entry(ByteBuf request, Consumer<Throwable> onFailure) {
+            this.request = request;
+            this.onFailure = onFailure;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.lixq.jsonrpc;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.lixq.jsonrpc.core.JsonRpcCacheKey;
+import com.lixq.jsonrpc.core.JsonRpcEncoding;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个方法的结果缓存
+ * 以规范化的参数为键，缓存序列化后的 JSON 结果字节：命中时既不调用服务方法，也不再序列化结果，
+ * JSON 编码的连接直接拼接缓存的字节，其他编码格式按 token 流转写。
+ * 条目数与总字节数均有上限，超出时淘汰最久未使用的条目，过期条目在访问时移除
+ */
+public class JsonRpcResultCache {
+    // 规范化键：Map 按键排序、对象属性按名称排序，与字段的原始顺序无关
+    private static final ObjectMapper keyMapper = JsonMapper.builder()
+        .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+        .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+        .build();
+    private static final String METHOD_KEY = "";
+
+    private final String methodName;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final JsonRpcCacheKey keyMode;
+    // 按访问顺序排列的条目，所有访问都在 this 上同步
+    private final LinkedHashMap<String, CachedResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    public JsonRpcResultCache(String methodName, long ttlMillis, int maxEntries, long maxBytes, JsonRpcCacheKey keyMode) {
+        this.methodName = methodName;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxBytes = Math.max(0, maxBytes);
+        this.keyMode = keyMode;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * 键是否只取决于请求中的 params 原文，此时可在绑定参数之前查找缓存
+     */
+    public boolean isKeyedBeforeBinding() {
+        return keyMode != JsonRpcCacheKey.CANONICAL;
+    }
+
+    /**
+     * 生成缓存键：CANONICAL 使用绑定后的参数，RAW 使用 params 原文，METHOD 忽略参数
+     */
+    public String key(Object params, Object[] args) throws IOException {
+        return key(keyMode, params, args);
+    }
+
+    /**
+     * 按键生成方式生成键，结果缓存与请求合并共用
+     */
+    static String key(JsonRpcCacheKey keyMode, Object params, Object[] args) throws IOException {
+        switch (keyMode) {
+            case METHOD:
+                return METHOD_KEY;
+            case RAW:
+                return keyMapper.writeValueAsString(params);
+            case CANONICAL:
+            default:
+                return keyMapper.writeValueAsString(args);
+        }
+    }
+
+    /**
+     * 查找未过期的缓存结果，未命中时返回 null
+     */
+    public CachedResult get(String key) {
+        CachedResult result;
+        synchronized (this) {
+            result = entries.get(key);
+            if (result != null && result.isExpired(System.nanoTime())) {
+                remove(key);
+                expirationCount.increment();
+                result = null;
+            }
+        }
+        if (result != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return result;
+    }
+
+    /**
+     * 序列化并缓存结果，返回可直接作为响应 result 的缓存条目；超过字节上限的结果不缓存，但仍返回序列化结果
+     */
+    public CachedResult put(String key, Object value) throws IOException {
+        byte[] json = JsonRpcEncodings.codec(JsonRpcEncoding.JSON).getObjectMapper().writeValueAsBytes(value);
+        CachedResult result = new CachedResult(json, System.nanoTime() + ttlNanos);
+        if (json.length > maxBytes) {
+            return result;
+        }
+        synchronized (this) {
+            remove(key);
+            entries.put(key, result);
+            bytes += json.length;
+            Iterator<CachedResult> eldest = entries.values().iterator();
+            while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+                bytes -= eldest.next().json.length;
+                eldest.remove();
+                evictionCount.increment();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 移除指定键的条目
+     */
+    public synchronized boolean invalidate(String key) {
+        return remove(key) != null;
+    }
+
+    /**
+     * 清空所有条目
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    private CachedResult remove(String key) {
+        CachedResult removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.json.length;
+        }
+        return removed;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 缓存结果占用的字节数
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 因条目数或字节数超限被淘汰的条目数
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 访问时发现已过期而移除的条目数
+     */
+    public long getExpirationCount() {
+        return expirationCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "JsonRpcResultCache{method=" + methodName + ", size=" + size() + ", bytes=" + getBytes()
+            + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount()
+            + ", expirations=" + getExpirationCount() + "}";
+    }
+
+    /**
+     * 缓存的序列化结果，作为 RpcResponse 的 result 写出；
+     * JsonRpcMessageEncoder 对 JSON 编码直接拼接字节，其他情况按 token 流写入任意格式的生成器
+     */
+    public static final class CachedResult implements JsonSerializable {
+        private final byte[] json;
+        private final long expiresAtNanos;
+
+        CachedResult(byte[] json, long expiresAtNanos) {
+            this.json = json;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        /**
+         * 序列化后的 JSON 结果，调用方不得修改
+         */
+        public byte[] getJson() {
+            return json;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+
+        @Override
+        public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            try (JsonParser parser = keyMapper.getFactory().createParser(json)) {
+                parser.nextToken();
+                generator.copyCurrentStructure(parser);
+            }
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSerializer) throws IOException {
+            serialize(generator, serializers);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.lixq.jsonrpc;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.internal.PlatformDependent;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 共享内存中的单生产者 / 单消费者环形缓冲区，可跨进程使用
+ * 内存布局：[tail(8) | 填充至 64 字节][head(8) | 填充至 64 字节][数据区 capacity 字节]，
+ * tail 与 head 位于不同的缓存行，避免读写两端伪共享。
+ * 数据区由记录组成：[长度(4)][内容]，按 8 字节对齐；剩余空间放不下记录时写入填充记录并回绕到开头。
+ * 写端先写内容再以 release 语义发布 tail，读端以 acquire 语义读取 tail，无需加锁
+ */
+final class JsonRpcRingBuffer {
+    static final int HEADER_SIZE = 128;
+    private static final int TAIL_OFFSET = 0;
+    private static final int HEAD_OFFSET = 64;
+    private static final int RECORD_HEADER = 4;
+    private static final int ALIGNMENT = 8;
+    // 数据区尾部剩余空间小于该值时直接回绕，避免产生过小的记录
+    private static final int MIN_RECORD = 64;
+    private static final int PADDING = -1;
+
+    private final long tailAddress;
+    private final long headAddress;
+    private final long dataAddress;
+    private final int capacity;
+    private final int mask;
+    // 数据区视图，只在所属的一端（写端或读端）的线程上使用
+    private final ByteBuffer data;
+
+    // 写端：本地 tail 与最近一次读到的 head
+    private long tail;
+    private long cachedHead;
+    // 读端：本地 head
+    private long head;
+
+    /**
+     * @param region   映射的共享内存
+     * @param offset   环形缓冲区在 region 中的起始偏移
+     * @param capacity 数据区大小，必须为 2 的幂
+     */
+    JsonRpcRingBuffer(ByteBuffer region, int offset, int capacity) {
+        long base = PlatformDependent.directBufferAddress(region) + offset;
+        this.tailAddress = base + TAIL_OFFSET;
+        this.headAddress = base + HEAD_OFFSET;
+        this.dataAddress = base + HEADER_SIZE;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        ByteBuffer view = region.duplicate();
+        view.position(offset + HEADER_SIZE);
+        view.limit(offset + HEADER_SIZE + capacity);
+        this.data = view.slice();
+        this.tail = JsonRpcMemory.getLongVolatile(tailAddress);
+        this.cachedHead = JsonRpcMemory.getLongVolatile(headAddress);
+        this.head = cachedHead;
+    }
+
+    /**
+     * 环形缓冲区占用的总字节数
+     */
+    static int size(int capacity) {
+        return HEADER_SIZE + capacity;
+    }
+
+    /**
+     * 清空 address 处环形缓冲区的读写位置，只能在两端都未使用时调用
+     */
+    static void reset(long address) {
+        JsonRpcMemory.putLongVolatile(address + HEAD_OFFSET, 0);
+        JsonRpcMemory.putLongVolatile(address + TAIL_OFFSET, 0);
+    }
+
+    /**
+     * 写端：写入 src 中从 index 开始的至多 length 字节，返回实际写入的字节数，缓冲区已满时返回 0
+     */
+    int write(ByteBuf src, int index, int length) {
+        long available = capacity - (tail - cachedHead);
+        if (available < RECORD_HEADER + length) {
+            cachedHead = JsonRpcMemory.getLongVolatile(headAddress);
+            available = capacity - (tail - cachedHead);
+        }
+        int position = (int) (tail & mask);
+        int toEnd = capacity - position;
+        if (toEnd < MIN_RECORD && available >= toEnd) {
+            JsonRpcMemory.putInt(dataAddress + position, PADDING);
+            tail += toEnd;
+            available -= toEnd;
+            position = 0;
+            toEnd = capacity;
+        }
+        // available 与 toEnd 均为 8 的倍数，记录对齐后不会越界
+        int space = (int) Math.min(available, toEnd) - RECORD_HEADER;
+        if (space <= 0) {
+            JsonRpcMemory.putLongOrdered(tailAddress, tail);
+            return 0;
+        }
+        int n = Math.min(length, space);
+        data.limit(position + RECORD_HEADER + n).position(position + RECORD_HEADER);
+        src.getBytes(index, data);
+        JsonRpcMemory.putInt(dataAddress + position, n);
+        tail += align(RECORD_HEADER + n);
+        JsonRpcMemory.putLongOrdered(tailAddress, tail);
+        return n;
+    }
+
+    /**
+     * 读端：读出当前已发布的记录，合并到一个 ByteBuf 中，至多读取 maxBytes 字节；没有数据时返回 null
+     */
+    ByteBuf read(ByteBufAllocator alloc, int maxBytes) {
+        long published = JsonRpcMemory.getLongVolatile(tailAddress);
+        if (head == published) {
+            return null;
+        }
+        // 先计算可读的字节数，再一次性分配
+        int total = 0;
+        long cursor = head;
+        while (cursor != published) {
+            int position = (int) (cursor & mask);
+            int length = JsonRpcMemory.getInt(dataAddress + position);
+            if (length == PADDING) {
+                cursor += capacity - position;
+                continue;
+            }
+            if (total > 0 && total + length > maxBytes) {
+                break;
+            }
+            total += length;
+            cursor += align(RECORD_HEADER + length);
+        }
+        long end = cursor;
+        ByteBuf out = alloc.ioBuffer(Math.max(total, 1));
+        cursor = head;
+        while (cursor != end) {
+            int position = (int) (cursor & mask);
+            int length = JsonRpcMemory.getInt(dataAddress + position);
+            if (length == PADDING) {
+                cursor += capacity - position;
+                continue;
+            }
+            data.limit(position + RECORD_HEADER + length).position(position + RECORD_HEADER);
+            out.writeBytes(data);
+            cursor += align(RECORD_HEADER + length);
+        }
+        head = end;
+        JsonRpcMemory.putLongOrdered(headAddress, head);
+        if (!out.isReadable()) {
+            // 只有填充记录
+            out.release();
+            return null;
+        }
+        return out;
+    }
+
+    private static int align(int size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
@@ -1,28 +1,64 @@
 package com.lixq.jsonrpc;
 
+import com.lixq.jsonrpc.core.JsonRpcEncoding;
+import com.lixq.jsonrpc.core.JsonRpcExecutionMode;
+import com.lixq.jsonrpc.core.JsonRpcFraming;
+import com.lixq.jsonrpc.core.JsonRpcOverflowPolicy;
 import com.lixq.jsonrpc.core.JsonRpcProtocol;
+import com.lixq.jsonrpc.core.JsonRpcTransport;
+import com.lixq.jsonrpc.core.JsonRpcWaitStrategy;
+import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.DelimiterBasedFrameDecoder;
-import io.netty.handler.codec.Delimiters;
-import io.netty.handler.codec.string.StringDecoder;
-import io.netty.handler.codec.string.StringEncoder;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerExpectContinueHandler;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolConfig;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilter;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilterProvider;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
+import io.netty.handler.codec.http2.CleartextHttp2ServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.ssl.SslContext;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
+import io.netty.util.AsciiString;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 /**
  * JSON-RPC 服务器
  */
 public class JsonRpcServer {
     private static final Logger log = LoggerFactory.getLogger(JsonRpcServer.class);
+
+    public static final String DEFAULT_SOCKET_PATH = "/tmp/jsonrpc.sock";
     
     private final JsonRpcProtocol protocol;
     private final String host;
@@ -33,6 +69,58 @@ public class JsonRpcServer {
     private EventLoopGroup workerGroup;
     private Channel serverChannel;
 
+    // 传输实现，默认自动选择原生传输
+    private JsonRpcTransport transport = JsonRpcTransport.AUTO;
+    // IPC 协议：Unix 域套接字文件路径
+    private String socketPath = DEFAULT_SOCKET_PATH;
+    // SHM 协议：共享文件路径、连接槽位数、单向环形缓冲区大小与读端等待策略
+    private String sharedMemoryPath = JsonRpcSharedMemory.DEFAULT_PATH;
+    private int sharedMemorySlots = JsonRpcSharedMemory.DEFAULT_SLOTS;
+    private int sharedMemoryRingSize = JsonRpcSharedMemory.DEFAULT_RING_SIZE;
+    private JsonRpcWaitStrategy sharedMemoryWaitStrategy = JsonRpcWaitStrategy.PARK;
+    // LOCAL 协议：进程内绑定名称，start() 后绑定的处理器与 stop() 时释放的等待信号
+    private String localName = JsonRpcLocal.DEFAULT_NAME;
+    private volatile JsonRpcServerHandler localHandler;
+    private volatile CountDownLatch localStopped;
+
+    // 分帧配置，默认按连接自动识别换行分帧或长度前缀分帧
+    private JsonRpcFraming framing = JsonRpcFraming.AUTO;
+    private int maxFrameLength = JsonRpcFrames.DEFAULT_MAX_FRAME_LENGTH;
+    // 默认编码格式，客户端可通过握手为单个连接切换
+    private JsonRpcEncoding encoding = JsonRpcEncoding.JSON;
+    // 客户端协商压缩（TCP 帧压缩、HTTP Accept-Encoding、WS permessage-deflate）时，负载达到该字节数才压缩
+    private int compressionThreshold = 1024;
+    // HTTP 传输：单个连接上未写出响应的流水线请求上限
+    private int maxPipelinedRequests = JsonRpcHttpCodec.DEFAULT_MAX_PIPELINED_REQUESTS;
+    // HTTP/2 传输：单个连接的最大并发流数
+    private int maxConcurrentStreams = 1024;
+    // HTTP / HTTP2 / WS 传输的 TLS 上下文，为 null 时使用明文
+    private SslContext sslContext;
+    // WebSocket 传输：握手路径、是否接受 permessage-deflate 与订阅方事件队列配置
+    private String webSocketPath = "/ws";
+    private boolean webSocketCompression = true;
+    private int subscriberQueueCapacity = JsonRpcSubscriptions.DEFAULT_QUEUE_CAPACITY;
+    private JsonRpcOverflowPolicy subscriberOverflowPolicy = JsonRpcOverflowPolicy.CONFLATE;
+
+    // 业务执行配置
+    private JsonRpcExecutionMode executionMode = JsonRpcExecutionMode.INLINE;
+    private int dispatchThreads = Runtime.getRuntime().availableProcessors() * 2;
+    private int dispatchQueueCapacity = 1024;
+    private int batchConcurrency = 8;
+    private Executor dispatchExecutor;
+    private ExecutorService ownedExecutor;
+    // 实际使用的业务执行器，start() 时确定
+    private Executor handlerExecutor;
+
+    private final JsonRpcMetrics metrics = new JsonRpcMetrics();
+    private boolean metricsEnabled = true;
+
+    // 慢请求日志，阈值为 0 时关闭
+    private long slowRequestThresholdMillis = 0;
+    private double slowRequestSampleRate = 1.0;
+    private int slowRequestLogsPerSecond = 10;
+    private JsonRpcSlowRequestLog slowRequestLog;
+
     public JsonRpcServer(JsonRpcProtocol protocol, String host, int port) {
         this(protocol, host, port, new JsonRpcServiceRegistry());
     }
@@ -51,39 +139,268 @@ public class JsonRpcServer {
         serviceRegistry.registerService(service);
     }
 
+    /**
+     * 设置传输实现，原生传输不可用时回退为 NIO
+     */
+    public void setTransport(JsonRpcTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * 设置 IPC 协议监听的 Unix 域套接字文件路径，IPC 协议忽略 host 与 port
+     */
+    public void setSocketPath(String socketPath) {
+        this.socketPath = socketPath;
+    }
+
+    /**
+     * 设置 SHM 协议的共享文件路径，建议位于 tmpfs（如 /dev/shm），SHM 协议忽略 host 与 port
+     */
+    public void setSharedMemoryPath(String sharedMemoryPath) {
+        this.sharedMemoryPath = sharedMemoryPath;
+    }
+
+    /**
+     * 设置 SHM 协议的连接槽位数，即同时连接的客户端连接数上限
+     */
+    public void setSharedMemorySlots(int sharedMemorySlots) {
+        this.sharedMemorySlots = sharedMemorySlots;
+    }
+
+    /**
+     * 设置 SHM 协议单向环形缓冲区的字节数，向上取整为 2 的幂；超过该大小的帧分段写入
+     */
+    public void setSharedMemoryRingSize(int sharedMemoryRingSize) {
+        this.sharedMemoryRingSize = sharedMemoryRingSize;
+    }
+
+    /**
+     * 设置 SHM 协议读端的等待策略：BUSY_SPIN 延迟最低但持续占用 CPU，PARK 空闲时退避
+     */
+    public void setSharedMemoryWaitStrategy(JsonRpcWaitStrategy sharedMemoryWaitStrategy) {
+        this.sharedMemoryWaitStrategy = sharedMemoryWaitStrategy;
+    }
+
+    /**
+     * 设置 LOCAL 协议的进程内绑定名称，同一 JVM 内的客户端按该名称直接调用，LOCAL 协议忽略 host 与 port
+     */
+    public void setLocalName(String localName) {
+        this.localName = localName;
+    }
+
+    /**
+     * 设置分帧方式，AUTO 时按连接的首字节识别
+     */
+    public void setFraming(JsonRpcFraming framing) {
+        this.framing = framing;
+    }
+
+    /**
+     * 设置单帧最大字节数，超出时关闭连接
+     */
+    public void setMaxFrameLength(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * 设置默认编码格式，二进制格式需要长度前缀分帧
+     */
+    public void setEncoding(JsonRpcEncoding encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * 设置压缩阈值（字节）：TCP 帧压缩算法由客户端在握手时选择，HTTP 按 Accept-Encoding 压缩响应，
+     * WS 在客户端协商 permessage-deflate 时压缩消息
+     */
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * 设置 HTTP 传输下单个连接未写出响应的流水线请求上限，达到后暂停读取该连接
+     */
+    public void setMaxPipelinedRequests(int maxPipelinedRequests) {
+        this.maxPipelinedRequests = maxPipelinedRequests;
+    }
+
+    /**
+     * 设置 HTTP/2 传输下单个连接的最大并发流数
+     */
+    public void setMaxConcurrentStreams(int maxConcurrentStreams) {
+        this.maxConcurrentStreams = maxConcurrentStreams;
+    }
+
+    /**
+     * 设置 HTTP / HTTP2 / WS 传输的 TLS 上下文；HTTP2 需配置 ALPN，可使用 JsonRpcHttp2.serverSslContext 创建
+     */
+    public void setSslContext(SslContext sslContext) {
+        this.sslContext = sslContext;
+    }
+
+    /**
+     * 设置 WebSocket 握手路径
+     */
+    public void setWebSocketPath(String webSocketPath) {
+        this.webSocketPath = webSocketPath;
+    }
+
+    /**
+     * 设置 WebSocket 传输是否接受客户端协商的 permessage-deflate，开启时只压缩达到 compressionThreshold 的消息
+     */
+    public void setWebSocketCompression(boolean webSocketCompression) {
+        this.webSocketCompression = webSocketCompression;
+    }
+
+    /**
+     * 设置每个订阅的事件队列容量，推送速度跟不上发布速度时按溢出策略处理
+     */
+    public void setSubscriberQueueCapacity(int subscriberQueueCapacity) {
+        this.subscriberQueueCapacity = subscriberQueueCapacity;
+    }
+
+    /**
+     * 设置订阅事件队列已满时的处理策略：CONFLATE（丢弃最旧的事件）或 DISCONNECT（断开连接）
+     */
+    public void setSubscriberOverflowPolicy(JsonRpcOverflowPolicy subscriberOverflowPolicy) {
+        this.subscriberOverflowPolicy = subscriberOverflowPolicy;
+    }
+
+    /**
+     * 设置服务方法的执行模式，默认在 I/O 线程上执行
+     */
+    public void setExecutionMode(JsonRpcExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * 设置业务线程池大小（POOL 模式）
+     */
+    public void setDispatchThreads(int dispatchThreads) {
+        this.dispatchThreads = dispatchThreads;
+    }
+
+    /**
+     * 设置业务线程池队列容量（POOL 模式），队列满时返回 ServerBusy 错误
+     */
+    public void setDispatchQueueCapacity(int dispatchQueueCapacity) {
+        this.dispatchQueueCapacity = dispatchQueueCapacity;
+    }
+
+    /**
+     * 设置单个批量请求最多并行执行的元素数（INLINE 模式下批量请求按顺序执行）
+     */
+    public void setBatchConcurrency(int batchConcurrency) {
+        this.batchConcurrency = batchConcurrency;
+    }
+
+    /**
+     * 使用自定义业务执行器，设置后忽略执行模式配置，执行器的生命周期由调用方管理
+     */
+    public void setDispatchExecutor(Executor dispatchExecutor) {
+        this.dispatchExecutor = dispatchExecutor;
+    }
+
+    /**
+     * 设置是否统计调用指标并提供内置的 rpc.metrics 方法，默认开启
+     */
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    /**
+     * 设置慢请求阈值（毫秒），从读到请求到响应写出超过该耗时的请求输出各阶段耗时，0 表示关闭
+     */
+    public void setSlowRequestThresholdMillis(long slowRequestThresholdMillis) {
+        this.slowRequestThresholdMillis = slowRequestThresholdMillis;
+    }
+
+    /**
+     * 设置分阶段计时的请求比例（0 ~ 1），未采样的请求不计时、不输出日志
+     */
+    public void setSlowRequestSampleRate(double slowRequestSampleRate) {
+        this.slowRequestSampleRate = slowRequestSampleRate;
+    }
+
+    /**
+     * 设置每秒最多输出的慢请求日志条数
+     */
+    public void setSlowRequestLogsPerSecond(int slowRequestLogsPerSecond) {
+        this.slowRequestLogsPerSecond = slowRequestLogsPerSecond;
+    }
+
+    /**
+     * 服务端指标，未开启统计时各项均为 0
+     */
+    public JsonRpcMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * 启动服务器
      */
     public void start() throws InterruptedException {
-        bossGroup = new NioEventLoopGroup(1);
-        workerGroup = new NioEventLoopGroup();
+        if (protocol == JsonRpcProtocol.LOCAL) {
+            startLocal();
+            return;
+        }
+        JsonRpcTransports.Transport selected = resolveTransport();
+        bossGroup = selected.newEventLoopGroup(1);
+        workerGroup = selected.newEventLoopGroup(0);
+
+        // 提前加载编码格式，数据格式模块缺失时启动即失败
+        JsonRpcEncodings.codec(encoding);
+        if ((isHttp() || protocol == JsonRpcProtocol.WS) && encoding != JsonRpcEncoding.JSON) {
+            log.warn("{} transport only supports JSON encoding, ignoring {}", protocol, encoding);
+        }
+        JsonRpcFraming serverFraming = framing;
+        if (encoding != JsonRpcEncoding.JSON && serverFraming == JsonRpcFraming.LINE) {
+            log.warn("{} encoding cannot use line framing, switching to length-prefixed framing", encoding);
+            serverFraming = JsonRpcFraming.LENGTH_PREFIXED;
+        }
+        JsonRpcFraming channelFraming = serverFraming;
+
+        initExecutor();
+        if (slowRequestThresholdMillis > 0 && slowRequestSampleRate > 0) {
+            slowRequestLog = new JsonRpcSlowRequestLog(slowRequestThresholdMillis, slowRequestSampleRate, slowRequestLogsPerSecond);
+        }
 
         try {
             ServerBootstrap b = new ServerBootstrap();
             b.group(bossGroup, workerGroup)
-             .channel(NioServerSocketChannel.class)
-             .option(ChannelOption.SO_BACKLOG, 1024)
-             .childOption(ChannelOption.SO_KEEPALIVE, true)
+             .channel(selected.getServerChannelClass())
              .handler(new LoggingHandler(LogLevel.INFO))
-             .childHandler(new ChannelInitializer<SocketChannel>() {
+             .childHandler(new ChannelInitializer<Channel>() {
                  @Override
-                 public void initChannel(SocketChannel ch) {
-                     ChannelPipeline pipeline = ch.pipeline();
-                     
-                     // 使用换行符作为分隔符，支持行分隔的 JSON 消息
-                     pipeline.addLast(new DelimiterBasedFrameDecoder(8192, Delimiters.lineDelimiter()));
-                     pipeline.addLast(new StringDecoder(StandardCharsets.UTF_8));
-                     pipeline.addLast(new StringEncoder(StandardCharsets.UTF_8));
-                     
-                     // 添加业务处理器
-                     pipeline.addLast(new JsonRpcServerHandler(serviceRegistry));
+                 public void initChannel(Channel ch) {
+                     if (slowRequestLog != null) {
+                         JsonRpcSlowRequestLog.addReadTimer(ch);
+                     }
+                     if (isHttp()) {
+                         initHttpChannel(ch);
+                     } else if (protocol == JsonRpcProtocol.WS) {
+                         initWebSocketChannel(ch);
+                     } else {
+                         // TCP、IPC 与 SHM 使用相同的分帧、握手与处理器
+                         initTcpChannel(ch, channelFraming);
+                         // 添加业务处理器
+                         ch.pipeline().addLast(newHandler());
+                     }
                  }
              });
 
-            ChannelFuture f = b.bind(host, port).sync();
+            if (protocol != JsonRpcProtocol.SHM) {
+                b.option(ChannelOption.SO_BACKLOG, 1024);
+            }
+            if (!isIpc() && protocol != JsonRpcProtocol.SHM) {
+                b.childOption(ChannelOption.SO_KEEPALIVE, true);
+            }
+
+            ChannelFuture f = b.bind(localAddress(selected)).sync();
             serverChannel = f.channel();
             
-            log.info("JSON-RPC Server started on {}:{} with protocol: {}", host, port, protocol);
+            log.info("JSON-RPC Server started on {} with protocol: {}, transport: {}, encoding: {}",
+                endpoint(), protocol, selected, encoding);
             
             // 等待服务器 socket 关闭
             f.channel().closeFuture().sync();
@@ -92,6 +409,269 @@ public class JsonRpcServer {
         }
     }
 
+    /**
+     * LOCAL 协议：不创建 EventLoop 与监听 Channel，只以名称绑定处理器，
+     * 客户端提交的请求对象按执行模式直接调用服务方法；与其他协议一致，阻塞到 stop() 为止
+     */
+    private void startLocal() throws InterruptedException {
+        initExecutor();
+        JsonRpcServerHandler handler = newHandler();
+        CountDownLatch stopped = new CountDownLatch(1);
+        try {
+            JsonRpcLocal.bind(localName, handler);
+            localStopped = stopped;
+            localHandler = handler;
+            log.info("JSON-RPC Server started on {} with protocol: {}", JsonRpcLocal.address(localName), protocol);
+            stopped.await();
+        } finally {
+            stop();
+        }
+    }
+
+    private void initExecutor() {
+        Executor executor = dispatchExecutor;
+        if (executor == null) {
+            ownedExecutor = JsonRpcExecutors.create(executionMode, dispatchThreads, dispatchQueueCapacity);
+            executor = ownedExecutor;
+        }
+        handlerExecutor = executor;
+    }
+
+    /**
+     * TCP 传输：换行分帧或长度前缀分帧，入站帧以 ByteBuf 形式直接交给处理器解析，不再经过 StringDecoder；
+     * 响应由处理器按相同的分帧方式直接编码为 ByteBuf，不再需要 StringEncoder
+     */
+    private void initTcpChannel(Channel ch, JsonRpcFraming channelFraming) {
+        JsonRpcFrames.addDecoder(ch, channelFraming, maxFrameLength);
+        // 识别客户端的编码格式与压缩握手
+        JsonRpcEncodings.addNegotiator(ch, encoding, compressionThreshold, maxFrameLength);
+    }
+
+    private boolean isIpc() {
+        return protocol == JsonRpcProtocol.IPC;
+    }
+
+    private JsonRpcTransports.Transport resolveTransport() {
+        if (isIpc()) {
+            return JsonRpcTransports.resolveDomainSocket(transport);
+        }
+        if (protocol == JsonRpcProtocol.SHM) {
+            return JsonRpcTransports.sharedMemory(sharedMemoryWaitStrategy);
+        }
+        return JsonRpcTransports.resolve(transport);
+    }
+
+    private String endpoint() {
+        if (isIpc()) {
+            return socketPath;
+        }
+        return protocol == JsonRpcProtocol.SHM ? sharedMemoryPath : host + ":" + port;
+    }
+
+    /**
+     * IPC 协议绑定 Unix 域套接字文件，上次未正常关闭遗留的套接字文件先删除，否则无法绑定；
+     * SHM 协议绑定时重新创建共享文件
+     */
+    private SocketAddress localAddress(JsonRpcTransports.Transport selected) throws InterruptedException {
+        if (protocol == JsonRpcProtocol.SHM) {
+            return new JsonRpcSharedMemory.SharedMemoryAddress(sharedMemoryPath, sharedMemorySlots, sharedMemoryRingSize);
+        }
+        if (!isIpc()) {
+            return new InetSocketAddress(host, port);
+        }
+        File socketFile = new File(socketPath);
+        DomainSocketAddress address = new DomainSocketAddress(socketFile);
+        if (socketFile.exists()) {
+            removeStaleSocket(socketFile.toPath(), address, selected);
+        }
+        return address;
+    }
+
+    /**
+     * 删除上次遗留的 socket 文件：只有路径上是 socket 且连接被拒绝（没有进程在监听）时才删除；
+     * 其他文件或仍在监听的 socket 保留并使启动失败（Netty 绑定前会直接删除路径上的文件，不能交给绑定处理）
+     */
+    private void removeStaleSocket(Path path, DomainSocketAddress address, JsonRpcTransports.Transport selected)
+        throws InterruptedException {
+        if (!isSocket(path)) {
+            throw new IllegalStateException("Cannot bind " + path + ": the file exists and is not a Unix domain socket");
+        }
+        ChannelFuture probe = new Bootstrap()
+            .group(workerGroup)
+            .channel(selected.getChannelClass())
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 1000)
+            .handler(new ChannelInboundHandlerAdapter())
+            .connect(address)
+            .await();
+        if (probe.isSuccess()) {
+            probe.channel().close();
+            throw new IllegalStateException("Cannot bind " + path + ": another process is listening on it");
+        }
+        try {
+            Files.delete(path);
+            log.info("Removed stale Unix domain socket {}", path);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot remove stale Unix domain socket " + path, e);
+        }
+    }
+
+    private static boolean isSocket(Path path) {
+        try {
+            int mode = (Integer) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+            // S_IFMT 与 S_IFSOCK
+            return (mode & 0170000) == 0140000;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private boolean isHttp() {
+        return protocol == JsonRpcProtocol.HTTP || protocol == JsonRpcProtocol.HTTP2;
+    }
+
+    private JsonRpcServerHandler newHandler() {
+        return new JsonRpcServerHandler(serviceRegistry, handlerExecutor, batchConcurrency, null, handlerMetrics(), slowRequestLog);
+    }
+
+    private JsonRpcMetrics handlerMetrics() {
+        return metricsEnabled ? metrics : null;
+    }
+
+    /**
+     * HTTP 传输：HTTP 协议只使用 HTTP/1.1；HTTP2 协议在 TLS 下通过 ALPN 协商 h2，
+     * 明文下同时接受 h2c prior knowledge 与 Upgrade: h2c，其余连接按 HTTP/1.1 处理
+     */
+    private void initHttpChannel(Channel ch) {
+        ChannelPipeline pipeline = ch.pipeline();
+        if (sslContext != null) {
+            pipeline.addLast(sslContext.newHandler(ch.alloc()));
+        }
+        if (protocol != JsonRpcProtocol.HTTP2) {
+            pipeline.addLast(new HttpServerCodec());
+            addHttp1Handlers(pipeline);
+            return;
+        }
+        if (sslContext != null) {
+            pipeline.addLast(new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+                @Override
+                protected void configurePipeline(ChannelHandlerContext ctx, String applicationProtocol) {
+                    if (ApplicationProtocolNames.HTTP_2.equals(applicationProtocol)) {
+                        addHttp2Handlers(ctx.pipeline(), ctx.name());
+                    } else {
+                        ctx.pipeline().addLast(new HttpServerCodec());
+                        addHttp1Handlers(ctx.pipeline());
+                    }
+                }
+            });
+            return;
+        }
+        HttpServerCodec sourceCodec = new HttpServerCodec();
+        HttpServerUpgradeHandler upgradeHandler = new HttpServerUpgradeHandler(sourceCodec, upgradeProtocol ->
+            AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, upgradeProtocol)
+                ? new Http2ServerUpgradeCodec(JsonRpcHttp2.newServerCodec(maxConcurrentStreams), newStreamMultiplexer())
+                : null,
+            maxFrameLength);
+        pipeline.addLast(new CleartextHttp2ServerUpgradeHandler(sourceCodec, upgradeHandler, new ChannelInboundHandlerAdapter() {
+            @Override
+            public void handlerAdded(ChannelHandlerContext ctx) {
+                // prior knowledge：在当前位置装入 HTTP/2 处理器，之后的 HTTP/1.1 处理器不会再收到流数据
+                addHttp2Handlers(ctx.pipeline(), ctx.name());
+                ctx.pipeline().remove(this);
+            }
+        }));
+        addHttp1Handlers(pipeline);
+    }
+
+    /**
+     * WebSocket 传输：每条文本或二进制消息为一个请求，响应与订阅通知以文本消息发送；
+     * 握手请求经 HttpObjectAggregator 聚合，消息分片由 WebSocketFrameAggregator 合并，上限均为 maxFrameLength
+     */
+    private void initWebSocketChannel(Channel ch) {
+        ChannelPipeline pipeline = ch.pipeline();
+        if (sslContext != null) {
+            pipeline.addLast(sslContext.newHandler(ch.alloc()));
+        }
+        pipeline.addLast(new HttpServerCodec());
+        pipeline.addLast(new HttpObjectAggregator(8192));
+        if (webSocketCompression) {
+            pipeline.addLast(newWebSocketCompressionHandler());
+        }
+        pipeline.addLast(new WebSocketServerProtocolHandler(WebSocketServerProtocolConfig.newBuilder()
+            .websocketPath(webSocketPath)
+            .allowExtensions(true)
+            .maxFramePayloadLength(maxFrameLength)
+            .build()));
+        pipeline.addLast(new WebSocketFrameAggregator(maxFrameLength));
+        pipeline.addLast(new JsonRpcWebSocketCodec());
+        JsonRpcFrames.markMessageOriented(ch);
+        pipeline.addLast(new JsonRpcServerHandler(serviceRegistry, handlerExecutor, batchConcurrency,
+            new JsonRpcSubscriptions(ch, subscriberQueueCapacity, subscriberOverflowPolicy), handlerMetrics(), slowRequestLog));
+    }
+
+    /**
+     * permessage-deflate 扩展：小于 compressionThreshold 的消息（如订阅通知）不压缩直接发送；
+     * Netty 在第一次压缩时才创建连接的 deflate 上下文，只收发小消息的连接不占用压缩缓冲区
+     */
+    private WebSocketServerExtensionHandler newWebSocketCompressionHandler() {
+        int threshold = compressionThreshold;
+        WebSocketExtensionFilter skipSmall = frame -> frame.content().readableBytes() < threshold;
+        WebSocketExtensionFilterProvider filters = new WebSocketExtensionFilterProvider() {
+            @Override
+            public WebSocketExtensionFilter encoderFilter() {
+                return skipSmall;
+            }
+
+            @Override
+            public WebSocketExtensionFilter decoderFilter() {
+                return WebSocketExtensionFilter.NEVER_SKIP;
+            }
+        };
+        return new WebSocketServerExtensionHandler(new PerMessageDeflateServerExtensionHandshaker(6,
+            ZlibCodecFactory.isSupportingWindowSizeAndMemLevel(), PerMessageDeflateServerExtensionHandshaker.MAX_WINDOW_SIZE,
+            false, false, filters));
+    }
+
+    /**
+     * HTTP/1.1：持久连接 + 请求流水线，请求体上限为 maxFrameLength；
+     * 按 Content-Encoding 解压请求，按 Accept-Encoding 压缩达到阈值的响应
+     */
+    private void addHttp1Handlers(ChannelPipeline pipeline) {
+        pipeline.addLast(new HttpServerExpectContinueHandler());
+        addExchangeHandlers(pipeline);
+        pipeline.addLast(new JsonRpcHttpCodec(maxFrameLength, maxPipelinedRequests));
+        pipeline.addLast(newHandler());
+    }
+
+    /**
+     * HTTP/2：每个流为独立的子 Channel，流内的请求转换为 HTTP/1.1 对象后复用 JsonRpcHttpCodec 与业务处理器
+     */
+    private void addHttp2Handlers(ChannelPipeline pipeline, String baseName) {
+        pipeline.addAfter(baseName, "http2Codec", JsonRpcHttp2.newServerCodec(maxConcurrentStreams));
+        pipeline.addAfter("http2Codec", "http2Multiplexer", newStreamMultiplexer());
+    }
+
+    private Http2MultiplexHandler newStreamMultiplexer() {
+        return new Http2MultiplexHandler(new ChannelInitializer<Http2StreamChannel>() {
+            @Override
+            protected void initChannel(Http2StreamChannel stream) {
+                ChannelPipeline pipeline = stream.pipeline();
+                if (slowRequestLog != null) {
+                    JsonRpcSlowRequestLog.addReadTimer(stream);
+                }
+                pipeline.addLast(new Http2StreamFrameToHttpObjectCodec(true));
+                addExchangeHandlers(pipeline);
+                pipeline.addLast(new JsonRpcHttpCodec(maxFrameLength));
+                pipeline.addLast(newHandler());
+            }
+        });
+    }
+
+    private void addExchangeHandlers(ChannelPipeline pipeline) {
+        pipeline.addLast(new HttpContentDecompressor());
+        pipeline.addLast(new HttpContentCompressor(compressionThreshold,
+            StandardCompressionOptions.gzip(), StandardCompressionOptions.deflate()));
+    }
+
     /**
      * 异步启动服务器（不阻塞）
      */
@@ -113,12 +693,25 @@ public class JsonRpcServer {
         if (serverChannel != null && serverChannel.isActive()) {
             serverChannel.close();
         }
+        JsonRpcServerHandler handler = localHandler;
+        if (handler != null) {
+            JsonRpcLocal.unbind(localName, handler);
+            localHandler = null;
+            localStopped.countDown();
+        }
         if (workerGroup != null) {
             workerGroup.shutdownGracefully();
         }
         if (bossGroup != null) {
             bossGroup.shutdownGracefully();
         }
+        if ((isIpc() || protocol == JsonRpcProtocol.SHM) && serverChannel != null) {
+            // 套接字文件与共享文件不会随 Channel 关闭自动删除，已连接的客户端映射不受影响
+            new File(endpoint()).delete();
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
         log.info("JSON-RPC Server stopped");
     }
 
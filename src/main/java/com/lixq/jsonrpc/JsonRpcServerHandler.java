@@ -1,17 +1,38 @@
 package com.lixq.jsonrpc;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-<<<<<<< HEAD
+import com.lixq.jsonrpc.core.JsonRpcEncoding;
 import com.lixq.jsonrpc.core.RpcErrorEnums;
 import com.lixq.jsonrpc.core.RpcRequest;
 import com.lixq.jsonrpc.core.RpcResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 
 /**
  * JSON-RPC 服务器处理器
@@ -21,212 +42,701 @@ public class JsonRpcServerHandler extends ChannelInboundHandlerAdapter {
     private static final ObjectMapper objectMapper = new ObjectMapper();
     
     private final JsonRpcServiceRegistry serviceRegistry;
+    // 业务执行器，为 null 时直接在 I/O 线程上执行
+    private final Executor executor;
+    // 单个批量请求最多同时占用的执行线程数
+    private final int batchConcurrency;
+    // 连接上的订阅，仅 WebSocket 连接支持，其他连接为 null
+    private final JsonRpcSubscriptions subscriptions;
+    // 服务端指标，为 null 时不统计
+    private final JsonRpcMetrics metrics;
+    // 慢请求日志，为 null 时不分阶段计时
+    private final JsonRpcSlowRequestLog slowRequestLog;
 
     public JsonRpcServerHandler(JsonRpcServiceRegistry serviceRegistry) {
+        this(serviceRegistry, null, 1);
+    }
+
+    public JsonRpcServerHandler(JsonRpcServiceRegistry serviceRegistry, Executor executor) {
+        this(serviceRegistry, executor, 1);
+    }
+
+    public JsonRpcServerHandler(JsonRpcServiceRegistry serviceRegistry, Executor executor, int batchConcurrency) {
+        this(serviceRegistry, executor, batchConcurrency, null);
+    }
+
+    /**
+     * @param subscriptions 连接上的订阅管理，为 null 时返回 JsonRpcStream 的方法调用以 InvalidRequest 结束
+     */
+    public JsonRpcServerHandler(JsonRpcServiceRegistry serviceRegistry, Executor executor, int batchConcurrency,
+                                JsonRpcSubscriptions subscriptions) {
+        this(serviceRegistry, executor, batchConcurrency, subscriptions, null);
+    }
+
+    /**
+     * @param metrics 记录调用指标并提供 rpc.metrics 方法，为 null 时不统计
+     */
+    public JsonRpcServerHandler(JsonRpcServiceRegistry serviceRegistry, Executor executor, int batchConcurrency,
+                                JsonRpcSubscriptions subscriptions, JsonRpcMetrics metrics) {
+        this(serviceRegistry, executor, batchConcurrency, subscriptions, metrics, null);
+    }
+
+    /**
+     * @param slowRequestLog 对采样的请求分阶段计时并输出慢请求日志，为 null 时不计时
+     */
+    public JsonRpcServerHandler(JsonRpcServiceRegistry serviceRegistry, Executor executor, int batchConcurrency,
+                                JsonRpcSubscriptions subscriptions, JsonRpcMetrics metrics, JsonRpcSlowRequestLog slowRequestLog) {
         this.serviceRegistry = serviceRegistry;
+        this.executor = executor;
+        this.batchConcurrency = Math.max(1, batchConcurrency);
+        this.subscriptions = subscriptions;
+        this.metrics = metrics;
+        this.slowRequestLog = slowRequestLog;
     }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-        // StringDecoder 已经将 ByteBuf 转换为 String
-        String json = (String) msg;
-        log.debug("Received JSON-RPC request: {}", json);
-
-        RpcResponse response;
+        // 直接从帧 ByteBuf 解析，不再经过 StringDecoder 生成中间 String；
+        // HTTP 传输下请求体包装在 Exchange 中，响应需带回同一个 Exchange 以便按请求顺序写出
+        JsonRpcHttpCodec.Exchange exchange = msg instanceof JsonRpcHttpCodec.Exchange ? (JsonRpcHttpCodec.Exchange) msg : null;
+        ByteBuf frame = exchange != null ? exchange.content() : (ByteBuf) msg;
+        JsonRpcSlowRequestLog.Trace trace = slowRequestLog != null ? slowRequestLog.trace(ctx.channel()) : null;
+        JsonRpcEnvelopeParser.Envelope envelope;
         try {
-            // 尝试解析为单个请求或批量请求
-            Object jsonNode = objectMapper.readValue(json, Object.class);
-            
-            if (jsonNode instanceof List) {
-                // 批量请求
-                @SuppressWarnings("unchecked")
-                List<Object> requestList = (List<Object>) jsonNode;
-                RpcRequest[] requests = objectMapper.convertValue(requestList, RpcRequest[].class);
-                List<RpcResponse> responses = Arrays.asList(handleBatchRequest(requests));
-                String responseJson = objectMapper.writeValueAsString(responses);
-                ctx.writeAndFlush(responseJson + "\n");
-                return;
-            } else {
-                // 单个请求
-                RpcRequest request = objectMapper.readValue(json, RpcRequest.class);
-                response = handleRequest(request);
+            if (metrics != null) {
+                metrics.recordBytesIn(frame.readableBytes());
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Received JSON-RPC request: {}", JsonRpcEncodings.encoding(ctx.channel()) == JsonRpcEncoding.JSON
+                    ? frame.toString(StandardCharsets.UTF_8) : frame.readableBytes() + " bytes");
+            }
+
+            // 单次流式解析请求信封，首个 token 决定是单个请求还是批量请求
+            long parseStart = trace != null ? System.nanoTime() : 0;
+            envelope = codec(ctx).getEnvelopeParser().parse(frame);
+            if (trace != null) {
+                trace.lap(JsonRpcSlowRequestLog.Stage.PARSE, parseStart);
+                trace.setRequests(envelope.getRequests());
             }
         } catch (Exception e) {
             log.error("Error parsing JSON-RPC request", e);
-            response = createErrorResponse(RpcErrorEnums.ParseError, null, null);
+            writeResponse(ctx, exchange, recordUnhandled(null, createErrorResponse(RpcErrorEnums.ParseError, null, null)), trace);
+            return;
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+
+        if (envelope.isBatch() && envelope.getRequests().length == 0) {
+            // 空的批量请求按规范返回单个 InvalidRequest 错误
+            writeResponse(ctx, exchange, recordUnhandled(null, createErrorResponse(RpcErrorEnums.InvalidRequest, null, null)), trace);
+            return;
+        }
+        dispatch(ctx, exchange, envelope, trace);
+    }
+
+    /**
+     * 分发请求：解析在 I/O 线程完成，服务方法在业务执行器中执行，
+     * 响应通过 ctx.writeAndFlush 交回 Channel 所属的 EventLoop 写出
+     */
+    private void dispatch(ChannelHandlerContext ctx, JsonRpcHttpCodec.Exchange exchange, JsonRpcEnvelopeParser.Envelope envelope,
+                          JsonRpcSlowRequestLog.Trace trace) {
+        RpcRequest[] requests = envelope.getRequests();
+        long queued = trace != null ? System.nanoTime() : 0;
+        Runnable task = () -> {
+            if (trace != null) {
+                trace.lap(JsonRpcSlowRequestLog.Stage.QUEUE, queued);
+            }
+            if (envelope.isBatch()) {
+                handleBatchRequest(ctx, exchange, requests, trace);
+            } else {
+                handleRequestAsync(requests[0], true, trace).thenAccept(response -> writeResponse(ctx, exchange, response, trace));
+            }
+        };
+
+        if (executor == null) {
+            task.run();
+            return;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Dispatch executor saturated, rejecting {} JSON-RPC request(s)", requests.length);
+            RpcResponse[] responses = new RpcResponse[requests.length];
+            for (int i = 0; i < requests.length; i++) {
+                responses[i] = recordUnhandled(requests[i], createErrorResponse(RpcErrorEnums.ServerBusy, requests[i].getId(), null));
+            }
+            writeResponse(ctx, exchange, envelope.isBatch() ? Arrays.asList(responses) : responses[0], trace);
+        }
+    }
+
+    /**
+     * 在当前线程按连接的分帧方式将响应直接编码为 ByteBuf，再交给 EventLoop 写出；
+     * HTTP、WebSocket 传输下只编码响应体，由 JsonRpcHttpCodec / JsonRpcWebSocketCodec 组装消息；
+     * 响应中的订阅在响应写出之后才开始推送
+     */
+    private void writeResponse(ChannelHandlerContext ctx, JsonRpcHttpCodec.Exchange exchange, Object response,
+                               JsonRpcSlowRequestLog.Trace trace) {
+        ByteBuf frame;
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug("Sending JSON-RPC response: {}", objectMapper.writeValueAsString(response));
+            }
+            long serializeStart = trace != null ? System.nanoTime() : 0;
+            JsonRpcMessageEncoder encoder = codec(ctx).getMessageEncoder();
+            frame = exchange != null || JsonRpcFrames.isMessageOriented(ctx.channel())
+                ? encoder.encodeBody(ctx.alloc(), response)
+                : encoder.encode(ctx.alloc(), response, JsonRpcFrames.framing(ctx.channel()));
+            if (trace != null) {
+                trace.lap(JsonRpcSlowRequestLog.Stage.SERIALIZE, serializeStart);
+            }
+            if (metrics != null) {
+                metrics.recordBytesOut(frame.readableBytes());
+            }
+        } catch (IOException e) {
+            log.error("Error serializing JSON-RPC response", e);
+            forEachSubscription(response, JsonRpcSubscriptions.Subscription::cancel);
+            writeResponse(ctx, exchange, createErrorResponse(RpcErrorEnums.InternalError, null, e.getMessage()), trace);
+            return;
         }
+        finishTrace(ctx.writeAndFlush(exchange != null ? exchange.response(frame) : frame), trace);
+        forEachSubscription(response, JsonRpcSubscriptions.Subscription::start);
+    }
 
-        String responseJson = objectMapper.writeValueAsString(response);
-        log.debug("Sending JSON-RPC response: {}", responseJson);
-        ctx.writeAndFlush(responseJson + "\n");
+    /**
+     * 写出完成时结束计时，future 为 null 表示无需写出
+     */
+    private void finishTrace(ChannelFuture future, JsonRpcSlowRequestLog.Trace trace) {
+        if (trace == null) {
+            return;
+        }
+        if (future == null) {
+            slowRequestLog.finish(trace);
+            return;
+        }
+        long writeStart = System.nanoTime();
+        future.addListener(f -> {
+            trace.lap(JsonRpcSlowRequestLog.Stage.WRITE, writeStart);
+            slowRequestLog.finish(trace);
+        });
     }
 
-    private RpcResponse handleRequest(RpcRequest request) {
+    private void forEachSubscription(Object response, Consumer<JsonRpcSubscriptions.Subscription> action) {
+        if (subscriptions == null) {
+            return;
+        }
+        if (response instanceof RpcResponse) {
+            Object result = ((RpcResponse) response).getResult();
+            if (result instanceof JsonRpcSubscriptions.Subscription) {
+                action.accept((JsonRpcSubscriptions.Subscription) result);
+            }
+        } else if (response instanceof Collection) {
+            for (Object element : (Collection<?>) response) {
+                forEachSubscription(element, action);
+            }
+        }
+    }
+
+    /**
+     * 连接协商后的编码格式对应的编解码器
+     */
+    private static JsonRpcEncodings.Codec codec(ChannelHandlerContext ctx) {
+        return JsonRpcEncodings.codec(JsonRpcEncodings.encoding(ctx.channel()));
+    }
+
+    /**
+     * LOCAL 协议：直接处理同一 JVM 内客户端提交的请求对象，不经过解析与编码，结果对象原样返回（不使用结果缓存）；
+     * 与网络连接相同，执行器为 null 时在调用线程上执行，执行器已满时返回 ServerBusy
+     */
+    CompletableFuture<RpcResponse> handleLocal(RpcRequest request) {
+        if (executor == null) {
+            return handleRequestAsync(request, false, null);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> handleRequestAsync(request, false, null), executor)
+                .thenCompose(Function.identity());
+        } catch (RejectedExecutionException e) {
+            log.warn("Dispatch executor saturated, rejecting local JSON-RPC request");
+            return CompletableFuture.completedFuture(
+                recordUnhandled(request, createErrorResponse(RpcErrorEnums.ServerBusy, request.getId(), null)));
+        }
+    }
+
+    /**
+     * 处理单个请求；开启请求合并的方法在相同调用正在执行时不再执行，返回的 Future 在那次调用完成时以自己的 id 完成，
+     * 其余请求在当前线程同步处理，返回已完成的 Future
+     *
+     * @param cacheable 是否需要编码响应（非 LOCAL 调用），决定是否使用结果缓存及与哪些调用合并
+     * @param trace     请求帧的分阶段计时，未采样时为 null
+     */
+    private CompletableFuture<RpcResponse> handleRequestAsync(RpcRequest request, boolean cacheable, JsonRpcSlowRequestLog.Trace trace) {
+        long lookupStart = trace != null ? System.nanoTime() : 0;
+        JsonRpcServiceRegistry.MethodInvoker invoker = request.getMethod() != null
+            ? serviceRegistry.getMethodInvoker(request.getMethod()) : null;
+        if (trace != null) {
+            trace.lap(JsonRpcSlowRequestLog.Stage.LOOKUP, lookupStart);
+        }
+        if (metrics == null) {
+            return handleRequestAsync(request, invoker, cacheable, trace);
+        }
+        // 延迟从开始处理记录到生成响应，合并到其他调用的请求包括等待那次调用的时间
+        JsonRpcMetrics.MethodMetrics methodMetrics = metrics.method(request.getMethod(), invoker != null || isBuiltIn(request));
+        long start = methodMetrics.begin(1);
+        CompletableFuture<RpcResponse> future = handleRequestAsync(request, invoker, cacheable, trace);
+        if (future.isDone()) {
+            methodMetrics.end(start, future.join());
+            return future;
+        }
+        return future.whenComplete((response, e) -> methodMetrics.end(start, response));
+    }
+
+    private CompletableFuture<RpcResponse> handleRequestAsync(RpcRequest request, JsonRpcServiceRegistry.MethodInvoker invoker,
+                                                              boolean cacheable, JsonRpcSlowRequestLog.Trace trace) {
+        JsonRpcSingleFlight singleFlight = invoker != null ? invoker.getSingleFlight() : null;
+        if (singleFlight == null) {
+            return CompletableFuture.completedFuture(handleRequest(request, invoker, null, cacheable, trace));
+        }
+        // 生成合并键时已绑定的参数直接交给 handleRequest，不再重复绑定；
+        // 参数无效或无法序列化时不合并，由 handleRequest 正常处理
+        Object[] args = null;
+        String key;
+        try {
+            if (!singleFlight.isKeyedBeforeBinding()) {
+                long start = trace != null ? System.nanoTime() : 0;
+                args = invoker.bindArguments(request.getParams());
+                if (trace != null) {
+                    trace.lap(JsonRpcSlowRequestLog.Stage.BIND, start);
+                }
+            }
+            key = singleFlight.key(request.getParams(), args);
+        } catch (IOException | IllegalArgumentException e) {
+            key = null;
+        }
+        Object[] boundArgs = args;
+        if (key == null) {
+            return CompletableFuture.completedFuture(handleRequest(request, invoker, boundArgs, cacheable, trace));
+        }
+        CompletableFuture<RpcResponse> shared;
+        try {
+            shared = singleFlight.execute(key, !cacheable, () -> handleRequest(request, invoker, boundArgs, cacheable, trace));
+        } catch (RuntimeException | Error e) {
+            log.error("Error invoking method: {}", request.getMethod(), e);
+            return CompletableFuture.completedFuture(createErrorResponse(RpcErrorEnums.InternalError, request.getId(), e.getMessage()));
+        }
+        return shared.handle((response, e) -> e != null
+            ? createErrorResponse(RpcErrorEnums.InternalError, request.getId(), e.getMessage())
+            : withId(response, request.getId()));
+    }
+
+    /**
+     * 共享的响应换上调用方自己的 id
+     */
+    private static RpcResponse withId(RpcResponse response, String id) {
+        return response.getError() != null ? new RpcResponse(response.getError(), id) : new RpcResponse(response.getResult(), id);
+    }
+
+    /**
+     * @param invoker   已查找到的方法，方法不存在时为 null
+     * @param boundArgs 已绑定的参数（请求合并时生成键已绑定），为 null 时在此绑定
+     * @param cacheable 是否使用方法的结果缓存；缓存的是序列化后的结果，只用于需要编码响应的连接
+     */
+    private RpcResponse handleRequest(RpcRequest request, JsonRpcServiceRegistry.MethodInvoker invoker, Object[] boundArgs,
+                                      boolean cacheable, JsonRpcSlowRequestLog.Trace trace) {
         // 验证请求
         if (request.getMethod() == null || request.getMethod().isEmpty()) {
             return createErrorResponse(RpcErrorEnums.InvalidRequest, request.getId(), null);
         }
 
-        // 查找方法
-        JsonRpcServiceRegistry.MethodInvoker invoker = serviceRegistry.getMethodInvoker(request.getMethod());
+        // 内置的取消订阅方法
+        if (subscriptions != null && JsonRpcSubscriptions.UNSUBSCRIBE_METHOD.equals(request.getMethod())) {
+            return unsubscribe(request);
+        }
+
+        // 内置的指标查询方法
+        if (metrics != null && JsonRpcMetrics.METRICS_METHOD.equals(request.getMethod())) {
+            return new RpcResponse(metrics.snapshot(), request.getId());
+        }
+
+        // 方法已在 handleRequestAsync 中查找
         if (invoker == null) {
             return createErrorResponse(RpcErrorEnums.MethodNotFound, request.getId(), null);
         }
 
         // 调用方法
         try {
-            Object params = request.getParams();
-            Object[] args = params != null ? (params instanceof List ? ((List<?>) params).toArray() : new Object[]{params}) : new Object[0];
-            
+            // params 在解析阶段保留为未绑定的 token 片段，此处直接绑定为目标参数类型；
+            // 缓存键只取决于 params 原文时先查缓存，命中则无需绑定参数
+            long start = trace != null ? System.nanoTime() : 0;
+            JsonRpcResultCache cache = cacheable ? invoker.getResultCache() : null;
+            Object[] args = boundArgs != null || cache != null && cache.isKeyedBeforeBinding()
+                ? boundArgs : invoker.bindArguments(request.getParams());
+            String cacheKey = cache != null ? cacheKey(cache, request, args) : null;
+            if (cacheKey != null) {
+                JsonRpcResultCache.CachedResult cached = cache.get(cacheKey);
+                if (cached != null) {
+                    return new RpcResponse(cached, request.getId());
+                }
+            }
+            if (args == null) {
+                args = invoker.bindArguments(request.getParams());
+            }
+            if (trace != null) {
+                start = trace.lap(JsonRpcSlowRequestLog.Stage.BIND, start);
+            }
             Object result = invoker.invoke(args);
+            if (trace != null) {
+                start = trace.lap(JsonRpcSlowRequestLog.Stage.INVOKE, start);
+            }
+            if (result instanceof JsonRpcStream) {
+                // 返回事件流的方法即为订阅，结果为订阅 id
+                if (subscriptions == null) {
+                    return createErrorResponse(RpcErrorEnums.InvalidRequest, request.getId(),
+                        "Subscriptions require a WebSocket connection");
+                }
+                if (isNotification(request)) {
+                    // 通知没有响应，订阅 id 无法送达，订阅方也就无法取消，不建立订阅
+                    log.warn("Ignoring subscription method {} called as a notification", request.getMethod());
+                    return createErrorResponse(RpcErrorEnums.InvalidRequest, null,
+                        "Subscriptions require a request id");
+                }
+                result = subscriptions.subscribe((JsonRpcStream<?>) result);
+            } else if (cacheKey != null) {
+                // 缓存序列化后的结果，本次响应同样直接写出这些字节
+                result = cache.put(cacheKey, result);
+                if (trace != null) {
+                    trace.lap(JsonRpcSlowRequestLog.Stage.SERIALIZE, start);
+                }
+            }
             return new RpcResponse(result, request.getId());
-        } catch (IllegalArgumentException e) {
+        } catch (JsonRpcBindingException e) {
             log.error("Invalid parameters for method: {}", request.getMethod(), e);
             return createErrorResponse(RpcErrorEnums.InvalidParams, request.getId(), e.getMessage());
-        } catch (Exception e) {
-            log.error("Error invoking method: {}", request.getMethod(), e);
-            return createErrorResponse(RpcErrorEnums.InternalError, request.getId(), e.getMessage());
+        } catch (Throwable e) {
+            // 服务方法抛出的异常（包括 Error）一律为 InternalError，并且总会生成响应，不会中断分发任务
+            Throwable cause = unwrap(e);
+            log.error("Error invoking method: {}", request.getMethod(), cause);
+            return createErrorResponse(RpcErrorEnums.InternalError, request.getId(), cause.getMessage());
         }
     }
 
-    private RpcResponse[] handleBatchRequest(RpcRequest[] requests) {
-        RpcResponse[] responses = new RpcResponse[requests.length];
-        for (int i = 0; i < requests.length; i++) {
-            responses[i] = handleRequest(requests[i]);
+    /**
+     * 服务方法抛出的异常由 MethodInvoker 包装为 InvocationTargetException，错误信息取原始异常
+     */
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof InvocationTargetException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * 当前连接上可用的内置方法
+     */
+    private boolean isBuiltIn(RpcRequest request) {
+        return subscriptions != null && JsonRpcSubscriptions.UNSUBSCRIBE_METHOD.equals(request.getMethod())
+            || metrics != null && JsonRpcMetrics.METRICS_METHOD.equals(request.getMethod());
+    }
+
+    /**
+     * 记录未经处理即返回的错误响应，request 为 null 或方法不存在时记入 UNKNOWN_METHOD
+     */
+    private RpcResponse recordUnhandled(RpcRequest request, RpcResponse response) {
+        if (metrics != null) {
+            String method = request != null ? request.getMethod() : null;
+            boolean known = method != null && (serviceRegistry.getMethodInvoker(method) != null || isBuiltIn(request));
+            metrics.method(method, known).record(response);
         }
-        return responses;
+        return response;
     }
 
-    private RpcResponse createErrorResponse(RpcErrorEnums errorEnum, String id, Object data) {
-        RpcResponse.RpcError rpcError = new RpcResponse.RpcError(
-            errorEnum.getCode(),
-            errorEnum.getMessage(),
-            data
-        );
-        return new RpcResponse(rpcError, id);
+    /**
+     * 生成缓存键，参数无法序列化时不使用缓存
+     */
+    private String cacheKey(JsonRpcResultCache cache, RpcRequest request, Object[] args) {
+        try {
+            return cache.key(request.getParams(), args);
+        } catch (IOException e) {
+            log.debug("Cannot build cache key for method: {}, bypassing result cache", request.getMethod(), e);
+            return null;
+        }
     }
 
-    @Override
-    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
-        log.error("Exception in channel", cause);
-        ctx.close();
+    /**
+     * rpc.unsubscribe：参数为订阅 id（位置参数或 {"subscription": id}），结果表示订阅是否存在
+     */
+    private RpcResponse unsubscribe(RpcRequest request) {
+        JsonNode params = request.getParams() != null ? objectMapper.convertValue(request.getParams(), JsonNode.class) : null;
+        JsonNode id = params == null ? null
+            : params.isArray() ? params.get(0)
+            : params.isObject() ? params.get("subscription")
+            : params;
+        if (id == null || !id.isValueNode()) {
+            return createErrorResponse(RpcErrorEnums.InvalidParams, request.getId(), "Missing subscription id");
+        }
+        return new RpcResponse(subscriptions.unsubscribe(id.asText()), request.getId());
     }
-=======
-import com.fasterxml.jackson.databind.SerializationFeature;
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
-import io.netty.channel.ChannelFutureListener;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.handler.codec.http.*;
-import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 
-import java.lang.reflect.Method;
-import java.nio.charset.StandardCharsets;
+    /**
+     * 并行处理批量请求
+     * 可批量方法的元素按方法合并为一个处理单元，其余元素各自为一个单元；
+     * 当前线程与最多 batchConcurrency - 1 个执行器任务组成若干条处理通道，共同领取处理单元；
+     * 结果按下标写回，最后一个元素完成时按请求顺序组装响应，不阻塞任何线程（合并到其他调用的元素在那次调用完成时写回）；
+     * 处理单元抛出异常时，其中尚未完成的元素返回 InternalError，保证响应总会写出
+     */
+    private void handleBatchRequest(ChannelHandlerContext ctx, JsonRpcHttpCodec.Exchange exchange, RpcRequest[] requests,
+                                    JsonRpcSlowRequestLog.Trace trace) {
+        RpcResponse[] responses = new RpcResponse[requests.length];
+        long lookupStart = trace != null ? System.nanoTime() : 0;
+        List<int[]> units = batchUnits(requests);
+        if (trace != null) {
+            trace.lap(JsonRpcSlowRequestLog.Stage.LOOKUP, lookupStart);
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(requests.length);
+        // 每个元素只完成一次，处理单元异常时补全剩余元素不会重复计数
+        AtomicIntegerArray completed = new AtomicIntegerArray(requests.length);
+        int lanes = executor == null ? 1 : Math.min(batchConcurrency, units.size());
 
-public class JsonRpcServerHandler extends SimpleChannelInboundHandler<Object> {
+        ObjIntConsumer<RpcResponse> complete = (response, index) -> {
+            if (!completed.compareAndSet(index, 0, 1)) {
+                return;
+            }
+            responses[index] = response;
+            if (remaining.decrementAndGet() == 0) {
+                writeBatchResponse(ctx, exchange, requests, responses, trace);
+            }
+        };
+        Runnable lane = () -> {
+            int unit;
+            while ((unit = next.getAndIncrement()) < units.size()) {
+                int[] indexes = units.get(unit);
+                try {
+                    if (indexes.length > 1) {
+                        handleBatchableGroup(requests, indexes, complete, trace);
+                    } else {
+                        int index = indexes[0];
+                        handleRequestAsync(requests[index], true, trace).whenComplete((response, e) ->
+                            complete.accept(e == null ? response : internalError(requests[index], e), index));
+                    }
+                } catch (Throwable e) {
+                    for (int index : indexes) {
+                        complete.accept(internalError(requests[index], e), index);
+                    }
+                }
+            }
+        };
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final JsonRpcMethodRegistry methodRegistry = new JsonRpcMethodRegistry();
+        for (int i = 1; i < lanes; i++) {
+            try {
+                executor.execute(lane);
+            } catch (RejectedExecutionException e) {
+                // 执行器已满时不再扩展通道，剩余元素由已启动的通道继续处理
+                break;
+            }
+        }
+        lane.run();
+    }
 
-    public JsonRpcServerHandler() {
-        try {
-            // 注册方法示例
-            Method testMethod = this.getClass().getMethod("testMethod");
-            methodRegistry.registerMethod("testMethod", testMethod);
-        } catch (NoSuchMethodException e) {
-            e.printStackTrace();
+    private RpcResponse internalError(RpcRequest request, Throwable e) {
+        Throwable cause = unwrap(e);
+        log.error("Error handling method: {}", request.getMethod(), cause);
+        return createErrorResponse(RpcErrorEnums.InternalError, request.getId(), cause.getMessage());
+    }
+
+    /**
+     * 划分批量请求的处理单元：同一可批量方法的元素合并为一个单元，其余元素各自为一个单元
+     */
+    private List<int[]> batchUnits(RpcRequest[] requests) {
+        List<int[]> units = new ArrayList<>(requests.length);
+        Map<String, List<Integer>> groups = null;
+        for (int i = 0; i < requests.length; i++) {
+            String method = requests[i].getMethod();
+            JsonRpcServiceRegistry.MethodInvoker invoker = method != null ? serviceRegistry.getMethodInvoker(method) : null;
+            if (invoker == null || !invoker.isBatchable()) {
+                units.add(new int[]{i});
+                continue;
+            }
+            if (groups == null) {
+                groups = new LinkedHashMap<>();
+            }
+            groups.computeIfAbsent(method, m -> new ArrayList<>()).add(i);
         }
+        if (groups != null) {
+            for (List<Integer> group : groups.values()) {
+                int[] indexes = new int[group.size()];
+                for (int i = 0; i < indexes.length; i++) {
+                    indexes[i] = group.get(i);
+                }
+                units.add(indexes);
+            }
+        }
+        return units;
     }
 
-    public String testMethod() {
-        return "Method executed successfully";
+    /**
+     * 可批量方法：批量中同一方法的元素只调用一次服务方法，结果按顺序分发回各自的 id；
+     * 参数无效的元素单独返回 InvalidParams，命中结果缓存的元素不参与调用，调用结果按元素写入缓存；
+     * 结果中的异常对象按 JsonRpcMethod#batchable 的约定返回错误，处理过程中抛出异常时尚未完成的元素返回 InternalError
+     */
+    private void handleBatchableGroup(RpcRequest[] requests, int[] indexes, ObjIntConsumer<RpcResponse> completion,
+                                      JsonRpcSlowRequestLog.Trace trace) {
+        String method = requests[indexes[0]].getMethod();
+        JsonRpcServiceRegistry.MethodInvoker invoker = serviceRegistry.getMethodInvoker(method);
+        // 每个元素各计一次调用，延迟均为整组的处理时间
+        JsonRpcMetrics.MethodMetrics methodMetrics = metrics != null ? metrics.method(method, true) : null;
+        long begin = methodMetrics != null ? methodMetrics.begin(indexes.length) : 0;
+        // 按 indexes 中的位置记录已完成的元素，indexes 为升序
+        boolean[] answered = new boolean[indexes.length];
+        ObjIntConsumer<RpcResponse> complete = (response, index) -> {
+            answered[Arrays.binarySearch(indexes, index)] = true;
+            if (methodMetrics != null) {
+                methodMetrics.end(begin, response);
+            }
+            completion.accept(response, index);
+        };
+        try {
+            invokeBatchableGroup(requests, indexes, method, invoker, complete, trace);
+        } catch (Throwable e) {
+            for (int i = 0; i < indexes.length; i++) {
+                if (!answered[i]) {
+                    complete.accept(internalError(requests[indexes[i]], e), indexes[i]);
+                }
+            }
+        }
     }
 
-    @Override
-    protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
-        JsonRpcRequest rpcRequest;
-        if (msg instanceof FullHttpRequest) {
-            FullHttpRequest request = (FullHttpRequest) msg;
-            if (request.method() != HttpMethod.POST) {
-                sendError(ctx, HttpResponseStatus.METHOD_NOT_ALLOWED);
-                return;
+    private void invokeBatchableGroup(RpcRequest[] requests, int[] indexes, String method,
+                                      JsonRpcServiceRegistry.MethodInvoker invoker, ObjIntConsumer<RpcResponse> complete,
+                                      JsonRpcSlowRequestLog.Trace trace) {
+        JsonRpcResultCache cache = invoker.getResultCache();
+        long start = trace != null ? System.nanoTime() : 0;
+        List<Object> elements = new ArrayList<>(indexes.length);
+        int[] pending = new int[indexes.length];
+        String[] cacheKeys = new String[indexes.length];
+        for (int index : indexes) {
+            RpcRequest request = requests[index];
+            Object element;
+            try {
+                element = invoker.bindElement(request.getParams());
+            } catch (JsonRpcBindingException e) {
+                log.error("Invalid parameters for method: {}", method, e);
+                complete.accept(createErrorResponse(RpcErrorEnums.InvalidParams, request.getId(), e.getMessage()), index);
+                continue;
             }
-            String content = request.content().toString(StandardCharsets.UTF_8);
-            objectMapper.disable(SerializationFeature.INDENT_OUTPUT);
-            rpcRequest = objectMapper.readValue(content, JsonRpcRequest.class);
-            handleRequest(ctx, rpcRequest, true);
-        } else if (msg instanceof TextWebSocketFrame) {
-            TextWebSocketFrame frame = (TextWebSocketFrame) msg;
-            String content = frame.text();
-            objectMapper.disable(SerializationFeature.INDENT_OUTPUT);
-            rpcRequest = objectMapper.readValue(content, JsonRpcRequest.class);
-            handleRequest(ctx, rpcRequest, false);
-        } else if (msg instanceof ByteBuf) {
-            ByteBuf buffer = (ByteBuf) msg;
-            String content = buffer.toString(StandardCharsets.UTF_8);
-            objectMapper.disable(SerializationFeature.INDENT_OUTPUT);
-            rpcRequest = objectMapper.readValue(content, JsonRpcRequest.class);
-            handleRequest(ctx, rpcRequest, false);
-        }
-    }
-
-    private void handleRequest(ChannelHandlerContext ctx, JsonRpcRequest rpcRequest, boolean isHttp) throws Exception {
-        JsonRpcResponse rpcResponse = new JsonRpcResponse();
-        rpcResponse.setJsonrpc("2.0");
-        rpcResponse.setId(rpcRequest.getId());
-
-        JsonRpcMethodRegistry.MethodInfo methodInfo = methodRegistry.getMethod(rpcRequest.getMethod());
-        if (methodInfo != null) {
-            Object result = methodInfo.getMethod().invoke(methodInfo.getInstance());
-            rpcResponse.setResult(result);
-        } else {
-            rpcResponse.setError("Method not found");
+            if (cache != null) {
+                // 与单独调用相同的键：参数为只含一个元素的 List
+                String key = cacheKey(cache, request, new Object[]{Collections.singletonList(element)});
+                JsonRpcResultCache.CachedResult cached = key != null ? cache.get(key) : null;
+                if (cached != null) {
+                    complete.accept(new RpcResponse(cached, request.getId()), index);
+                    continue;
+                }
+                cacheKeys[elements.size()] = key;
+            }
+            pending[elements.size()] = index;
+            elements.add(element);
+        }
+        if (trace != null) {
+            start = trace.lap(JsonRpcSlowRequestLog.Stage.BIND, start);
+        }
+        if (elements.isEmpty()) {
+            return;
+        }
+
+        List<?> results;
+        try {
+            results = invoker.invokeBatch(elements);
+            if (trace != null) {
+                start = trace.lap(JsonRpcSlowRequestLog.Stage.INVOKE, start);
+            }
+        } catch (Throwable e) {
+            Throwable cause = unwrap(e);
+            log.error("Error invoking batchable method: {} with {} calls", method, elements.size(), cause);
+            for (int i = 0; i < elements.size(); i++) {
+                complete.accept(createErrorResponse(RpcErrorEnums.InternalError, requests[pending[i]].getId(), cause.getMessage()), pending[i]);
+            }
+            return;
+        }
+        for (int i = 0; i < elements.size(); i++) {
+            String id = requests[pending[i]].getId();
+            Object result = results.get(i);
+            RpcResponse response;
+            if (result instanceof Throwable) {
+                Throwable cause = (Throwable) result;
+                response = createErrorResponse(cause instanceof JsonRpcBindingException
+                    ? RpcErrorEnums.InvalidParams : RpcErrorEnums.InternalError, id, cause.getMessage());
+            } else {
+                response = new RpcResponse(cacheResult(cache, cacheKeys[i], result, method), id);
+            }
+            complete.accept(response, pending[i]);
+        }
+        if (trace != null && cache != null) {
+            trace.lap(JsonRpcSlowRequestLog.Stage.SERIALIZE, start);
         }
+    }
 
-        String responseJson = objectMapper.writeValueAsString(rpcResponse);
-        if (isHttp) {
-            ByteBuf responseContent = Unpooled.copiedBuffer(responseJson, StandardCharsets.UTF_8);
-            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, responseContent);
-            response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json; charset=UTF-8");
-            response.headers().set(HttpHeaderNames.CONTENT_LENGTH, responseContent.readableBytes());
-            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+    /**
+     * 将结果写入缓存并返回缓存条目，未开启缓存或结果无法序列化时返回原结果
+     */
+    private Object cacheResult(JsonRpcResultCache cache, String key, Object result, String method) {
+        if (cache == null || key == null) {
+            return result;
+        }
+        try {
+            return cache.put(key, result);
+        } catch (IOException e) {
+            log.error("Error serializing result of method: {}", method, e);
+            return result;
+        }
+    }
+
+    /**
+     * 按请求顺序写出批量响应，通知（无 id 的请求）不出现在响应数组中；
+     * 全部为通知时不写出任何内容，HTTP 传输下返回 204 No Content
+     */
+    private void writeBatchResponse(ChannelHandlerContext ctx, JsonRpcHttpCodec.Exchange exchange,
+                                    RpcRequest[] requests, RpcResponse[] responses, JsonRpcSlowRequestLog.Trace trace) {
+        List<RpcResponse> replies = new ArrayList<>(responses.length);
+        for (int i = 0; i < responses.length; i++) {
+            if (!isNotification(requests[i])) {
+                replies.add(responses[i]);
+            }
+        }
+        if (!replies.isEmpty()) {
+            writeResponse(ctx, exchange, replies, trace);
         } else {
-            ctx.writeAndFlush(new TextWebSocketFrame(responseJson));
+            finishTrace(exchange != null ? ctx.writeAndFlush(exchange.response(Unpooled.EMPTY_BUFFER)) : null, trace);
         }
     }
 
-    private void sendError(ChannelHandlerContext ctx, HttpResponseStatus status) {
-        FullHttpResponse response = new DefaultFullHttpResponse(
-                HttpVersion.HTTP_1_1, status, Unpooled.copiedBuffer("Failure: " + status.toString() + "\r\n", StandardCharsets.UTF_8));
-        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain; charset=UTF-8");
-        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+    private boolean isNotification(RpcRequest request) {
+        return request.getId() == null && request.getMethod() != null && !request.getMethod().isEmpty();
     }
 
-    @Override
-    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
-        cause.printStackTrace();
-        ctx.close();
+    private RpcResponse createErrorResponse(RpcErrorEnums errorEnum, String id, Object data) {
+        RpcResponse.RpcError rpcError = new RpcResponse.RpcError(
+            errorEnum.getCode(),
+            errorEnum.getMessage(),
+            data
+        );
+        return new RpcResponse(rpcError, id);
     }
 
-    private JsonRpcResponse processRequest(JsonRpcRequest rpcRequest) {
-        JsonRpcResponse rpcResponse = new JsonRpcResponse();
-        rpcResponse.setJsonrpc("2.0");
-        rpcResponse.setId(rpcRequest.getId());
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (subscriptions != null && ctx.channel().isWritable()) {
+            subscriptions.drainAll();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
 
-        Method method = methodRegistry.getMethod(rpcRequest.getMethod());
-        if (method != null) {
-            try {
-                Object result = method.invoke(this);
-                rpcResponse.setResult(result);
-            } catch (Exception e) {
-                rpcResponse.setError("Method execution error: " + e.getMessage());
-            }
-        } else {
-            rpcResponse.setError("Method not found");
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (subscriptions != null) {
+            subscriptions.cancelAll();
         }
-        return rpcResponse;
+        super.channelInactive(ctx);
     }
 
->>>>>>> 8e4a0eb843bd226a7ca1b5f86903446f846cc9b7
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.error("Exception in channel", cause);
+        ctx.close();
+    }
 }
@@ -1,11 +1,30 @@
 package com.lixq.jsonrpc;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ClassUtil;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.lixq.jsonrpc.core.JsonRpcMethod;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -13,8 +32,17 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class JsonRpcServiceRegistry {
     private static final Logger log = LoggerFactory.getLogger(JsonRpcServiceRegistry.class);
-    
+
     private final Map<String, MethodInvoker> methodMap = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+
+    public JsonRpcServiceRegistry() {
+        this(new ObjectMapper());
+    }
+
+    public JsonRpcServiceRegistry(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
 
     /**
      * 注册服务对象
@@ -22,12 +50,12 @@ public class JsonRpcServiceRegistry {
     public void registerService(Object service) {
         Class<?> clazz = service.getClass();
         Method[] methods = clazz.getMethods();
-        
+
         for (Method method : methods) {
             JsonRpcMethod annotation = method.getAnnotation(JsonRpcMethod.class);
             if (annotation != null) {
                 String methodName = annotation.value();
-                methodMap.put(methodName, new MethodInvoker(service, method));
+                methodMap.put(methodName, new MethodInvoker(service, method, objectMapper));
                 log.info("Registered JSON-RPC method: {}", methodName);
             }
         }
@@ -47,32 +75,449 @@ public class JsonRpcServiceRegistry {
         return methodMap.get(methodName);
     }
 
+    /**
+     * 获取方法的结果缓存，方法不存在或未开启缓存时返回 null
+     */
+    public JsonRpcResultCache getResultCache(String methodName) {
+        MethodInvoker invoker = methodMap.get(methodName);
+        return invoker != null ? invoker.getResultCache() : null;
+    }
+
+    /**
+     * 所有开启了结果缓存的方法及其缓存，用于查看命中率等统计
+     */
+    public Map<String, JsonRpcResultCache> getResultCaches() {
+        Map<String, JsonRpcResultCache> caches = new TreeMap<>();
+        for (Map.Entry<String, MethodInvoker> entry : methodMap.entrySet()) {
+            if (entry.getValue().getResultCache() != null) {
+                caches.put(entry.getKey(), entry.getValue().getResultCache());
+            }
+        }
+        return caches;
+    }
+
+    /**
+     * 清空方法的全部缓存结果，方法未开启缓存时返回 false
+     */
+    public boolean invalidate(String methodName) {
+        JsonRpcResultCache cache = getResultCache(methodName);
+        if (cache == null) {
+            return false;
+        }
+        cache.invalidateAll();
+        return true;
+    }
+
+    /**
+     * 移除方法在指定参数下的缓存结果，params 与请求中的 params 形式相同（数组、List、Map 或单个值）；
+     * 条目存在并被移除时返回 true
+     */
+    public boolean invalidate(String methodName, Object params) {
+        MethodInvoker invoker = methodMap.get(methodName);
+        JsonRpcResultCache cache = invoker != null ? invoker.getResultCache() : null;
+        if (cache == null) {
+            return false;
+        }
+        try {
+            Object[] args = cache.isKeyedBeforeBinding() ? null : invoker.bindArguments(params);
+            return cache.invalidate(cache.key(params, args));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot build cache key for " + methodName, e);
+        }
+    }
+
+    /**
+     * 清空所有方法的缓存结果
+     */
+    public void invalidateAll() {
+        for (MethodInvoker invoker : methodMap.values()) {
+            if (invoker.getResultCache() != null) {
+                invoker.getResultCache().invalidateAll();
+            }
+        }
+    }
+
     /**
      * 方法调用器
+     * 注册时预先计算每个参数的 JavaType/ObjectReader 并生成 MethodHandle，
+     * 调用时 params 直接绑定为目标参数类型，不再经过反射和中间 LinkedHashMap
      */
     public static class MethodInvoker {
+        private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
         private final Object service;
         private final Method method;
+        private final ObjectMapper objectMapper;
+        private final MethodHandle handle;
+        private final JavaType[] parameterTypes;
+        // 参数的原始类型，基本类型换为包装类型，已是目标类型的参数（LOCAL 协议）不再转换；
+        // 带泛型参数的类型（如 List<Foo>）为 null，原始类型无法确认元素类型，总是转换
+        private final Class<?>[] parameterClasses;
+        private final ObjectReader[] parameterReaders;
+        private final Map<String, Integer> parameterIndexes;
+        // @JsonRpcMethod 开启缓存时的结果缓存，否则为 null
+        private final JsonRpcResultCache resultCache;
+        // @JsonRpcMethod 开启请求合并时的合并器，否则为 null
+        private final JsonRpcSingleFlight singleFlight;
+        // 可批量方法：List 参数的元素类型，非可批量方法为 null
+        private final JavaType elementType;
+        private final Class<?> elementClass;
+        private final ObjectReader elementReader;
 
         public MethodInvoker(Object service, Method method) {
+            this(service, method, new ObjectMapper());
+        }
+
+        public MethodInvoker(Object service, Method method, ObjectMapper objectMapper) {
             this.service = service;
             this.method = method;
             this.method.setAccessible(true);
+            this.objectMapper = objectMapper;
+
+            int parameterCount = method.getParameterCount();
+            try {
+                MethodHandle target = MethodHandles.lookup().unreflect(method);
+                if (!Modifier.isStatic(method.getModifiers())) {
+                    target = target.bindTo(service);
+                }
+                this.handle = target.asSpreader(Object[].class, parameterCount).asType(INVOKER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot access JSON-RPC method: " + method, e);
+            }
+
+            this.parameterTypes = new JavaType[parameterCount];
+            this.parameterClasses = new Class<?>[parameterCount];
+            this.parameterReaders = new ObjectReader[parameterCount];
+            for (int i = 0; i < parameterCount; i++) {
+                parameterTypes[i] = objectMapper.getTypeFactory().constructType(method.getGenericParameterTypes()[i]);
+                parameterClasses[i] = instanceClass(parameterTypes[i]);
+                parameterReaders[i] = objectMapper.readerFor(parameterTypes[i]);
+            }
+            this.parameterIndexes = resolveParameterIndexes(method);
+            this.resultCache = createResultCache(method);
+            this.singleFlight = createSingleFlight(method);
+
+            JsonRpcMethod annotation = method.getAnnotation(JsonRpcMethod.class);
+            if (annotation != null && annotation.batchable()) {
+                if (parameterCount != 1 || !parameterTypes[0].isCollectionLikeType()
+                    || !parameterTypes[0].getRawClass().isAssignableFrom(ArrayList.class)
+                    || !List.class.isAssignableFrom(method.getReturnType())) {
+                    throw new IllegalArgumentException("@JsonRpcMethod batchable requires a single List parameter and a List result: " + method);
+                }
+                this.elementType = parameterTypes[0].getContentType();
+                this.elementClass = instanceClass(elementType);
+                this.elementReader = objectMapper.readerFor(elementType);
+            } else {
+                this.elementType = null;
+                this.elementClass = null;
+                this.elementReader = null;
+            }
         }
 
+        /**
+         * 将请求中的 params 绑定为方法参数
+         * 数组按位置绑定，对象按参数名绑定（参数名未知时整体绑定到唯一参数），其他值绑定到唯一参数
+         */
+        public Object[] bindArguments(Object params) {
+            if (isBatchable()) {
+                // 可批量方法的单独调用：以只含一个元素的 List 调用
+                List<Object> elements = new ArrayList<>(1);
+                elements.add(bindElement(params));
+                return new Object[]{elements};
+            }
+            try {
+                Object[] args;
+                if (params instanceof TokenBuffer) {
+                    args = bindTokens((TokenBuffer) params);
+                } else if (params instanceof List) {
+                    args = bindPositional(((List<?>) params).toArray());
+                } else if (params instanceof Object[]) {
+                    args = bindPositional((Object[]) params);
+                } else if (params instanceof Map && bindsByName()) {
+                    args = bindNamed((Map<?, ?>) params);
+                } else if (params == null) {
+                    args = new Object[parameterTypes.length];
+                } else {
+                    args = bindSingle(params);
+                }
+                checkPrimitives(args);
+                return args;
+            } catch (JsonRpcBindingException e) {
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                throw new JsonRpcBindingException(e.getMessage(), e);
+            }
+        }
+
+        /**
+         * 以绑定后的参数调用方法；可批量方法的参数为只含一个元素的 List，返回结果 List 中唯一的元素
+         *
+         * @throws JsonRpcBindingException 可批量方法以该异常对象表示参数无效
+         * @throws InvocationTargetException 服务方法抛出的异常（包括 Error），或可批量方法以其他异常对象表示的失败
+         */
         public Object invoke(Object[] params) throws Exception {
-            if (params == null || params.length == 0) {
-                return method.invoke(service);
-            } else if (params.length == 1) {
-                return method.invoke(service, params[0]);
-            } else {
-                return method.invoke(service, (Object) params);
+            Object result = invokeHandle(params);
+            if (!isBatchable()) {
+                return result;
+            }
+            Object element = checkBatchResult(result, 1).get(0);
+            if (element instanceof JsonRpcBindingException) {
+                throw (JsonRpcBindingException) element;
+            }
+            if (element instanceof Throwable) {
+                throw new InvocationTargetException((Throwable) element);
+            }
+            return element;
+        }
+
+        /**
+         * 是否为可批量方法
+         */
+        public boolean isBatchable() {
+            return elementType != null;
+        }
+
+        /**
+         * 可批量方法：将单个调用的 params 绑定为 List 的元素；只含一个值的数组按该值绑定（元素类型为数组或集合时除外），
+         * 其他形式整体绑定为元素
+         */
+        public Object bindElement(Object params) {
+            try {
+                if (params instanceof TokenBuffer) {
+                    return bindElementTokens((TokenBuffer) params);
+                }
+                Object value = params;
+                if (!elementType.isContainerType()) {
+                    if (params instanceof List && ((List<?>) params).size() == 1) {
+                        value = ((List<?>) params).get(0);
+                    } else if (params instanceof Object[] && ((Object[]) params).length == 1) {
+                        value = ((Object[]) params)[0];
+                    }
+                }
+                if (value == null || elementClass != null && elementClass.isInstance(value)) {
+                    return value;
+                }
+                return objectMapper.convertValue(value, elementType);
+            } catch (JsonRpcBindingException e) {
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                throw new JsonRpcBindingException(e.getMessage(), e);
+            }
+        }
+
+        /**
+         * 可批量方法：以一组调用的元素调用一次方法，返回与元素一一对应的结果；
+         * 结果中的异常对象表示对应调用失败，服务方法自身抛出的异常包装为 InvocationTargetException
+         */
+        public List<?> invokeBatch(List<?> elements) throws Exception {
+            return checkBatchResult(invokeHandle(new Object[]{new ArrayList<>(elements)}), elements.size());
+        }
+
+        private List<?> checkBatchResult(Object result, int expected) {
+            if (!(result instanceof List) || ((List<?>) result).size() != expected) {
+                throw new IllegalStateException("Batchable method " + method.getName() + " returned "
+                    + (result instanceof List ? ((List<?>) result).size() + " results" : "no list") + " for " + expected + " calls");
+            }
+            return (List<?>) result;
+        }
+
+        private Object bindElementTokens(TokenBuffer tokens) throws IOException {
+            try (JsonParser parser = tokens.asParser(objectMapper)) {
+                JsonToken token = parser.nextToken();
+                if (token != JsonToken.START_ARRAY || elementType.isContainerType()) {
+                    return elementReader.readValue(parser);
+                }
+                if (parser.nextToken() == JsonToken.END_ARRAY) {
+                    return null;
+                }
+                Object element = elementReader.readValue(parser);
+                if (parser.nextToken() != JsonToken.END_ARRAY) {
+                    throw tooManyParameters();
+                }
+                return element;
+            }
+        }
+
+        private Object invokeHandle(Object[] params) throws Exception {
+            Object[] args = params != null ? params : new Object[0];
+            if (args.length != parameterTypes.length) {
+                throw new JsonRpcBindingException("Expected " + parameterTypes.length + " parameters but got " + args.length);
+            }
+            try {
+                return (Object) handle.invokeExact(args);
+            } catch (Throwable t) {
+                // 与 Method.invoke 相同，服务方法抛出的任何异常都包装后抛出，不与参数绑定错误混淆
+                throw new InvocationTargetException(t);
             }
         }
 
         public Method getMethod() {
             return method;
         }
+
+        /**
+         * 方法的结果缓存，未开启缓存时返回 null
+         */
+        public JsonRpcResultCache getResultCache() {
+            return resultCache;
+        }
+
+        /**
+         * 方法的请求合并器，未开启请求合并时返回 null
+         */
+        public JsonRpcSingleFlight getSingleFlight() {
+            return singleFlight;
+        }
+
+        private Object[] bindTokens(TokenBuffer tokens) throws IOException {
+            Object[] args = new Object[parameterTypes.length];
+            try (JsonParser parser = tokens.asParser(objectMapper)) {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_ARRAY) {
+                    int index = 0;
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (index >= args.length) {
+                            throw tooManyParameters();
+                        }
+                        args[index] = parameterReaders[index].readValue(parser);
+                        index++;
+                    }
+                } else if (token == JsonToken.START_OBJECT && bindsByName()) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        int index = indexOf(parser.getCurrentName());
+                        parser.nextToken();
+                        args[index] = parameterReaders[index].readValue(parser);
+                    }
+                } else if (args.length == 1) {
+                    args[0] = parameterReaders[0].readValue(parser);
+                } else if (token != JsonToken.VALUE_NULL) {
+                    throw new JsonRpcBindingException("Cannot bind params to " + args.length + " parameters");
+                }
+            }
+            return args;
+        }
+
+        private Object[] bindPositional(Object[] values) {
+            if (values.length > parameterTypes.length) {
+                throw tooManyParameters();
+            }
+            Object[] args = new Object[parameterTypes.length];
+            for (int i = 0; i < values.length; i++) {
+                args[i] = convert(values[i], i);
+            }
+            return args;
+        }
+
+        private Object[] bindNamed(Map<?, ?> values) {
+            Object[] args = new Object[parameterTypes.length];
+            for (Map.Entry<?, ?> entry : values.entrySet()) {
+                int index = indexOf(String.valueOf(entry.getKey()));
+                args[index] = convert(entry.getValue(), index);
+            }
+            return args;
+        }
+
+        private Object[] bindSingle(Object value) {
+            if (parameterTypes.length != 1) {
+                throw new JsonRpcBindingException("Cannot bind params to " + parameterTypes.length + " parameters");
+            }
+            return new Object[]{convert(value, 0)};
+        }
+
+        private Object convert(Object value, int index) {
+            Class<?> type = parameterClasses[index];
+            if (value == null || type != null && type.isInstance(value)) {
+                return value;
+            }
+            return objectMapper.convertValue(value, parameterTypes[index]);
+        }
+
+        private boolean bindsByName() {
+            return !parameterIndexes.isEmpty() || parameterTypes.length == 0;
+        }
+
+        private int indexOf(String name) {
+            Integer index = parameterIndexes.get(name);
+            if (index == null) {
+                throw new JsonRpcBindingException("Unknown parameter: " + name);
+            }
+            return index;
+        }
+
+        private JsonRpcBindingException tooManyParameters() {
+            return new JsonRpcBindingException("Too many parameters, expected " + parameterTypes.length);
+        }
+
+        private void checkPrimitives(Object[] args) {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] == null && parameterTypes[i].isPrimitive()) {
+                    throw new JsonRpcBindingException("Missing value for primitive parameter at index " + i);
+                }
+            }
+        }
+
+        /**
+         * 可直接以 isInstance 判断是否无需转换的类型，带泛型参数的类型（含其数组）返回 null
+         */
+        private static Class<?> instanceClass(JavaType type) {
+            for (JavaType t = type; t != null; t = t.isArrayType() ? t.getContentType() : null) {
+                if (t.hasGenericTypes()) {
+                    return null;
+                }
+            }
+            Class<?> raw = type.getRawClass();
+            return raw.isPrimitive() ? ClassUtil.wrapperType(raw) : raw;
+        }
+
+        private static JsonRpcResultCache createResultCache(Method method) {
+            JsonRpcMethod annotation = method.getAnnotation(JsonRpcMethod.class);
+            if (annotation == null || annotation.cacheTtlMillis() <= 0) {
+                return null;
+            }
+            return new JsonRpcResultCache(annotation.value(), annotation.cacheTtlMillis(), annotation.cacheMaxEntries(),
+                annotation.cacheMaxBytes(), annotation.cacheKey());
+        }
+
+        private static JsonRpcSingleFlight createSingleFlight(Method method) {
+            JsonRpcMethod annotation = method.getAnnotation(JsonRpcMethod.class);
+            if (annotation == null || !annotation.singleFlight()) {
+                return null;
+            }
+            if (JsonRpcStream.class.isAssignableFrom(method.getReturnType())) {
+                // 订阅属于单个连接，不能共享
+                log.warn("Single-flight is not supported for subscription method {}, ignoring", annotation.value());
+                return null;
+            }
+            return new JsonRpcSingleFlight(annotation.value(), annotation.cacheKey());
+        }
+
+        /**
+         * 解析参数名：优先使用注解声明的 params，其次使用编译期保留的参数名
+         */
+        private static Map<String, Integer> resolveParameterIndexes(Method method) {
+            String[] names;
+            JsonRpcMethod annotation = method.getAnnotation(JsonRpcMethod.class);
+            if (annotation != null && annotation.params().length > 0) {
+                names = annotation.params();
+                if (names.length != method.getParameterCount()) {
+                    throw new IllegalArgumentException("@JsonRpcMethod params do not match parameters of " + method);
+                }
+            } else {
+                Parameter[] parameters = method.getParameters();
+                names = new String[parameters.length];
+                for (int i = 0; i < parameters.length; i++) {
+                    if (!parameters[i].isNamePresent()) {
+                        return Collections.emptyMap();
+                    }
+                    names[i] = parameters[i].getName();
+                }
+            }
+
+            Map<String, Integer> indexes = new HashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                indexes.put(names[i], i);
+            }
+            return indexes;
+        }
     }
 }
-
@@ -0,0 +1,1001 @@
+package com.lixq.jsonrpc;
+
+import com.lixq.jsonrpc.core.JsonRpcWaitStrategy;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.AbstractServerChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.DefaultChannelConfig;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.util.internal.MathUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.BindException;
+import java.net.ConnectException;
+import java.net.SocketAddress;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ConnectionPendingException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 共享内存传输（SHM 协议）
+ * 服务端创建并映射一个共享文件，文件划分为若干槽位，每个槽位是一条连接，包含一对单生产者 / 单消费者环形缓冲区
+ * （客户端到服务端、服务端到客户端）。客户端通过 CAS 占用空闲槽位完成连接，两端之后只读写各自的环形缓冲区，不经过内核。
+ * 环形缓冲区承载与 TCP 相同的分帧字节流，因此分帧、编码握手与帧压缩均与 TCP 一致。
+ * 读端由专用的 EventLoop 轮询，等待策略为忙等自旋或退避 park。
+ * 服务端在文件头、客户端在槽位头中定期递增心跳计数，对端长时间观察不到变化即认为其已退出：
+ * 服务端回收已退出客户端的槽位，客户端关闭与已退出服务端的连接。
+ * 文件布局：[文件头 128 字节][槽位 0]...[槽位 n-1]，槽位为 [槽位头 128 字节][请求环][响应环]
+ */
+public final class JsonRpcSharedMemory {
+    private static final Logger log = LoggerFactory.getLogger(JsonRpcSharedMemory.class);
+
+    public static final String DEFAULT_PATH = "/dev/shm/jsonrpc";
+    public static final int DEFAULT_SLOTS = 8;
+    public static final int DEFAULT_RING_SIZE = 4 * 1024 * 1024;
+
+    private static final int MAGIC = 0x4A525348;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 128;
+    private static final int SLOT_HEADER_SIZE = 128;
+    private static final int MIN_RING_SIZE = 4096;
+    // 文件头字段偏移，服务端状态单独占用一个缓存行
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int SLOTS_OFFSET = 8;
+    private static final int RING_SIZE_OFFSET = 12;
+    private static final int SERVER_STATE_OFFSET = 64;
+    private static final int SERVER_HEARTBEAT_OFFSET = 72;
+    // 槽位头字段偏移，心跳由客户端写入
+    private static final int SLOT_STATE_OFFSET = 0;
+    private static final int SLOT_HEARTBEAT_OFFSET = 8;
+
+    private static final int SERVER_OPEN = 1;
+    private static final int SERVER_CLOSED = 2;
+
+    // 槽位状态
+    private static final int SLOT_FREE = 0;
+    private static final int SLOT_CLAIMED = 1;
+    private static final int SLOT_CONNECTED = 2;
+    private static final int SLOT_CLOSED_BY_CLIENT = 3;
+    private static final int SLOT_CLOSED_BY_SERVER = 4;
+    private static final int SLOT_RESETTING = 5;
+
+    // 心跳间隔与对端超时：对端的状态与心跳在超时时间内都没有变化即认为其已退出
+    private static final long HEARTBEAT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long PEER_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    // 绑定时等待已有文件的服务端心跳的时间，期间没有变化即认为其已退出
+    private static final long BIND_CHECK_NANOS = 5 * HEARTBEAT_INTERVAL_NANOS;
+    // 所有共享内存 Channel 共享的心跳线程；轮询的 EventLoop 中有定时任务时每次轮询都要读取时钟，拉长自旋
+    private static final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(
+        new DefaultThreadFactory("jsonrpc-shm-heartbeat", true));
+
+    // 单次读取合并的最大字节数与单次轮询的最大读取次数，避免一条连接独占 EventLoop
+    private static final int MAX_READ_BYTES = 64 * 1024;
+    private static final int MAX_READS_PER_POLL = 16;
+
+    private JsonRpcSharedMemory() {
+    }
+
+    /**
+     * 共享文件地址；服务端绑定时同时指定槽位数与单个环形缓冲区大小，客户端从文件头读取
+     */
+    public static final class SharedMemoryAddress extends SocketAddress {
+        private static final long serialVersionUID = 1L;
+
+        private final String path;
+        private final int slots;
+        private final int ringSize;
+
+        public SharedMemoryAddress(String path) {
+            this(path, DEFAULT_SLOTS, DEFAULT_RING_SIZE);
+        }
+
+        public SharedMemoryAddress(String path, int slots, int ringSize) {
+            this.path = path;
+            this.slots = Math.max(1, slots);
+            this.ringSize = MathUtil.safeFindNextPositivePowerOfTwo(Math.max(MIN_RING_SIZE, ringSize));
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public String toString() {
+            return "shm:" + path;
+        }
+    }
+
+    /**
+     * 映射后的共享文件
+     */
+    private static final class Region {
+        private final MappedByteBuffer buffer;
+        private final long address;
+        private final int slots;
+        private final int ringSize;
+        private final int slotSize;
+
+        private Region(MappedByteBuffer buffer, int slots, int ringSize) {
+            this.buffer = buffer;
+            this.address = PlatformDependent.directBufferAddress(buffer);
+            this.slots = slots;
+            this.ringSize = ringSize;
+            this.slotSize = slotSize(ringSize);
+        }
+
+        private static int slotSize(int ringSize) {
+            return SLOT_HEADER_SIZE + 2 * JsonRpcRingBuffer.size(ringSize);
+        }
+
+        /**
+         * 服务端：重新创建共享文件，上次遗留的文件先删除；新文件内容全为 0，即所有槽位空闲。
+         * 路径上已有的文件不是共享文件或其服务端仍在运行时绑定失败
+         */
+        static Region create(SharedMemoryAddress address) throws IOException {
+            long size = HEADER_SIZE + (long) address.slots * slotSize(address.ringSize);
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Shared memory file exceeds 2 GiB: " + address.slots
+                    + " slots of " + address.ringSize + " bytes");
+            }
+            File file = new File(address.path);
+            if (file.exists()) {
+                removeStale(file);
+            }
+            Region region = new Region(map(file, size, true), address.slots, address.ringSize);
+            JsonRpcMemory.putInt(region.address + VERSION_OFFSET, VERSION);
+            JsonRpcMemory.putInt(region.address + SLOTS_OFFSET, address.slots);
+            JsonRpcMemory.putInt(region.address + RING_SIZE_OFFSET, address.ringSize);
+            JsonRpcMemory.putIntVolatile(region.address + SERVER_STATE_OFFSET, SERVER_OPEN);
+            // 最后写入魔数，客户端看到魔数即可读取完整的文件头
+            JsonRpcMemory.putIntVolatile(region.address + MAGIC_OFFSET, MAGIC);
+            return region;
+        }
+
+        /**
+         * 删除上次遗留的共享文件：服务端已关闭，或在 BIND_CHECK_NANOS 内心跳没有变化（已退出）
+         */
+        private static void removeStale(File file) throws IOException {
+            String path = file.getPath();
+            if (!file.isFile() || file.length() < HEADER_SIZE) {
+                throw new BindException("Refusing to replace " + path + ": not a JSON-RPC shared memory file");
+            }
+            MappedByteBuffer buffer = map(file, HEADER_SIZE, false);
+            long base = PlatformDependent.directBufferAddress(buffer);
+            if (JsonRpcMemory.getIntVolatile(base + MAGIC_OFFSET) != MAGIC) {
+                throw new BindException("Refusing to replace " + path + ": not a JSON-RPC shared memory file");
+            }
+            long beat = JsonRpcMemory.getLongVolatile(base + SERVER_HEARTBEAT_OFFSET);
+            long deadline = System.nanoTime() + BIND_CHECK_NANOS;
+            while (JsonRpcMemory.getIntVolatile(base + SERVER_STATE_OFFSET) == SERVER_OPEN
+                && System.nanoTime() - deadline < 0) {
+                if (JsonRpcMemory.getLongVolatile(base + SERVER_HEARTBEAT_OFFSET) != beat) {
+                    throw new BindException("Address already in use: a JSON-RPC server is running on " + path);
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+            Files.delete(file.toPath());
+            log.info("Removed stale shared memory file {}", path);
+        }
+
+        /**
+         * 客户端：映射服务端创建的共享文件并校验文件头
+         */
+        static Region open(SharedMemoryAddress address) throws IOException {
+            File file = new File(address.path);
+            if (!file.isFile()) {
+                throw new ConnectException("Shared memory file not found: " + address.path);
+            }
+            MappedByteBuffer buffer = map(file, file.length(), false);
+            long base = PlatformDependent.directBufferAddress(buffer);
+            if (buffer.capacity() < HEADER_SIZE || JsonRpcMemory.getIntVolatile(base + MAGIC_OFFSET) != MAGIC) {
+                throw new ConnectException("Not a JSON-RPC shared memory file: " + address.path);
+            }
+            if (JsonRpcMemory.getInt(base + VERSION_OFFSET) != VERSION) {
+                throw new ConnectException("Unsupported shared memory version " + JsonRpcMemory.getInt(base + VERSION_OFFSET));
+            }
+            Region region = new Region(buffer, JsonRpcMemory.getInt(base + SLOTS_OFFSET), JsonRpcMemory.getInt(base + RING_SIZE_OFFSET));
+            if (HEADER_SIZE + (long) region.slots * region.slotSize > buffer.capacity()) {
+                throw new ConnectException("Truncated shared memory file: " + address.path);
+            }
+            if (!region.isServerOpen()) {
+                throw new ConnectException("JSON-RPC server on " + address.path + " is closed");
+            }
+            return region;
+        }
+
+        private static MappedByteBuffer map(File file, long size, boolean create) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+                if (create) {
+                    raf.setLength(size);
+                }
+                // 映射在 FileChannel 关闭后依然有效，由 GC 回收时解除
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        boolean isServerOpen() {
+            return JsonRpcMemory.getIntVolatile(address + SERVER_STATE_OFFSET) == SERVER_OPEN;
+        }
+
+        void closeServer() {
+            JsonRpcMemory.putIntVolatile(address + SERVER_STATE_OFFSET, SERVER_CLOSED);
+        }
+
+        long serverHeartbeat() {
+            return JsonRpcMemory.getLongVolatile(address + SERVER_HEARTBEAT_OFFSET);
+        }
+
+        /**
+         * 服务端：递增文件头中的心跳
+         */
+        void beatServer() {
+            JsonRpcMemory.putLongOrdered(address + SERVER_HEARTBEAT_OFFSET, serverHeartbeat() + 1);
+        }
+
+        private long slotAddress(int slot) {
+            return address + HEADER_SIZE + (long) slot * slotSize;
+        }
+
+        private int ringOffset(int slot, boolean toServer) {
+            return HEADER_SIZE + slot * slotSize + SLOT_HEADER_SIZE + (toServer ? 0 : JsonRpcRingBuffer.size(ringSize));
+        }
+
+        JsonRpcRingBuffer ring(int slot, boolean toServer) {
+            return new JsonRpcRingBuffer(buffer, ringOffset(slot, toServer), ringSize);
+        }
+
+        int state(int slot) {
+            return JsonRpcMemory.getIntVolatile(slotAddress(slot) + SLOT_STATE_OFFSET);
+        }
+
+        boolean compareAndSetState(int slot, int expect, int update) {
+            return JsonRpcMemory.compareAndSwapInt(slotAddress(slot) + SLOT_STATE_OFFSET, expect, update);
+        }
+
+        long heartbeat(int slot) {
+            return JsonRpcMemory.getLongVolatile(slotAddress(slot) + SLOT_HEARTBEAT_OFFSET);
+        }
+
+        /**
+         * 客户端：递增槽位头中的心跳
+         */
+        void beat(int slot) {
+            JsonRpcMemory.putLongOrdered(slotAddress(slot) + SLOT_HEARTBEAT_OFFSET, heartbeat(slot) + 1);
+        }
+
+        /**
+         * 客户端：占用一个空闲槽位，没有空闲槽位时返回 -1
+         */
+        int claim() {
+            for (int slot = 0; slot < slots; slot++) {
+                if (compareAndSetState(slot, SLOT_FREE, SLOT_CLAIMED)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 关闭槽位：对端仍在使用时标记为本端已关闭，由对端释放；对端已关闭时直接释放
+         */
+        void close(int slot, boolean server) {
+            int closed = server ? SLOT_CLOSED_BY_SERVER : SLOT_CLOSED_BY_CLIENT;
+            int peerClosed = server ? SLOT_CLOSED_BY_CLIENT : SLOT_CLOSED_BY_SERVER;
+            for (;;) {
+                int state = state(slot);
+                if (state == SLOT_CLAIMED || state == SLOT_CONNECTED) {
+                    if (compareAndSetState(slot, state, closed)) {
+                        return;
+                    }
+                } else {
+                    if (state == peerClosed) {
+                        free(slot, peerClosed);
+                    }
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 释放槽位：先清空两个环形缓冲区再标记为空闲，CAS 保证只释放一次
+         */
+        void free(int slot, int expect) {
+            if (compareAndSetState(slot, expect, SLOT_RESETTING)) {
+                JsonRpcRingBuffer.reset(address + ringOffset(slot, true));
+                JsonRpcRingBuffer.reset(address + ringOffset(slot, false));
+                JsonRpcMemory.putIntVolatile(slotAddress(slot) + SLOT_STATE_OFFSET, SLOT_FREE);
+            }
+        }
+    }
+
+    /**
+     * 观察对端的状态与心跳：两者在 PEER_TIMEOUT_NANOS 内都没有变化即认为对端已退出。
+     * 超时按本进程观察到变化的时间计算，不依赖两个进程的时钟
+     */
+    private static final class PeerWatch {
+        private int state = -1;
+        private long beat;
+        private long changedNanos;
+
+        boolean isDead(int state, long beat, long now) {
+            if (state != this.state || beat != this.beat) {
+                this.state = state;
+                this.beat = beat;
+                changedNanos = now;
+                return false;
+            }
+            if (now - changedNanos < PEER_TIMEOUT_NANOS) {
+                return false;
+            }
+            // 重新计时，处理未生效时在下一个超时后再次返回 true
+            changedNanos = now;
+            return true;
+        }
+    }
+
+    /**
+     * 由 SharedMemoryEventLoop 轮询的 Channel
+     */
+    private interface Pollable {
+        /**
+         * 轮询一次，有数据读写或状态变化时返回 true
+         */
+        boolean poll();
+
+        /**
+         * 是否为传输数据的连接，只有存在数据连接时 EventLoop 才按等待策略自旋
+         */
+        boolean isDataChannel();
+    }
+
+    /**
+     * 共享内存 EventLoopGroup，threads 为 0 时使用 1 个线程：轮询线程按等待策略可能占满 CPU，不宜按核数创建
+     */
+    public static final class SharedMemoryEventLoopGroup extends MultithreadEventLoopGroup {
+        public SharedMemoryEventLoopGroup(int threads, JsonRpcWaitStrategy waitStrategy) {
+            super(Math.max(1, threads), (Executor) null, waitStrategy);
+            if (waitStrategy == JsonRpcWaitStrategy.BUSY_SPIN && Runtime.getRuntime().availableProcessors() < 2) {
+                log.warn("BUSY_SPIN wait strategy on a single CPU starves other threads, consider PARK");
+            }
+        }
+
+        @Override
+        protected EventLoop newChild(Executor executor, Object... args) {
+            return new SharedMemoryEventLoop(this, executor, (JsonRpcWaitStrategy) args[0]);
+        }
+    }
+
+    /**
+     * 轮询已注册 Channel 的环形缓冲区并执行任务队列，空闲时按等待策略自旋或 park；
+     * 其他线程提交任务时通过 unpark 唤醒
+     */
+    private static final class SharedMemoryEventLoop extends SingleThreadEventLoop {
+        private static final int SPIN_TRIES = 200;
+        private static final int YIELD_TRIES = 100;
+        private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+        private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+        // 没有任何 Channel 时只需等待任务
+        private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        private final JsonRpcWaitStrategy waitStrategy;
+        // 只在 EventLoop 线程上修改
+        private Pollable[] pollables = new Pollable[0];
+        private int dataChannels;
+        private volatile Thread thread;
+
+        SharedMemoryEventLoop(EventLoopGroup parent, Executor executor, JsonRpcWaitStrategy waitStrategy) {
+            super(parent, executor, false);
+            this.waitStrategy = waitStrategy != null ? waitStrategy : JsonRpcWaitStrategy.PARK;
+        }
+
+        void add(Pollable pollable) {
+            Pollable[] updated = Arrays.copyOf(pollables, pollables.length + 1);
+            updated[pollables.length] = pollable;
+            pollables = updated;
+            if (pollable.isDataChannel()) {
+                dataChannels++;
+            }
+        }
+
+        void remove(Pollable pollable) {
+            for (int i = 0; i < pollables.length; i++) {
+                if (pollables[i] == pollable) {
+                    Pollable[] updated = new Pollable[pollables.length - 1];
+                    System.arraycopy(pollables, 0, updated, 0, i);
+                    System.arraycopy(pollables, i + 1, updated, i, updated.length - i);
+                    pollables = updated;
+                    if (pollable.isDataChannel()) {
+                        dataChannels--;
+                    }
+                    return;
+                }
+            }
+        }
+
+        @Override
+        protected void run() {
+            thread = Thread.currentThread();
+            int idleCount = 0;
+            for (;;) {
+                boolean busy = false;
+                for (Pollable pollable : pollables) {
+                    try {
+                        busy |= pollable.poll();
+                    } catch (Throwable t) {
+                        log.warn("Unexpected exception while polling shared memory channel", t);
+                    }
+                }
+                busy |= runAllTasks();
+                if (isShuttingDown()) {
+                    closeAll();
+                    if (confirmShutdown()) {
+                        return;
+                    }
+                }
+                idleCount = busy ? 0 : idle(idleCount);
+            }
+        }
+
+        private int idle(int idleCount) {
+            if (dataChannels == 0) {
+                // 只有服务端 Channel 时按 1 毫秒间隔检查新连接
+                park(pollables.length > 0 ? MAX_PARK_NANOS : IDLE_PARK_NANOS);
+                return 0;
+            }
+            if (waitStrategy == JsonRpcWaitStrategy.BUSY_SPIN || idleCount < SPIN_TRIES) {
+                return Math.min(idleCount + 1, SPIN_TRIES);
+            }
+            if (idleCount < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+                return idleCount + 1;
+            }
+            int backoff = Math.min(idleCount - SPIN_TRIES - YIELD_TRIES, 20);
+            park(Math.min(MAX_PARK_NANOS, MIN_PARK_NANOS << backoff));
+            return idleCount + 1;
+        }
+
+        private void park(long nanos) {
+            long deadline = nextScheduledTaskDeadlineNanos();
+            if (deadline != -1) {
+                nanos = Math.min(nanos, deadline - getCurrentTimeNanos());
+            }
+            // 检查任务后再 park，其间提交的任务会先 unpark，park 随即返回
+            if (nanos > 0 && !hasTasks()) {
+                LockSupport.parkNanos(this, nanos);
+            }
+        }
+
+        @Override
+        protected void wakeup(boolean inEventLoop) {
+            Thread t = thread;
+            if (!inEventLoop && t != null) {
+                LockSupport.unpark(t);
+            }
+        }
+
+        private void closeAll() {
+            for (Pollable pollable : pollables) {
+                Channel channel = (Channel) pollable;
+                channel.unsafe().close(channel.unsafe().voidPromise());
+            }
+        }
+    }
+
+    /**
+     * 服务端 Channel：绑定时创建共享文件，轮询槽位状态接受新连接
+     */
+    public static final class SharedMemoryServerChannel extends AbstractServerChannel implements Pollable {
+        private final ChannelConfig config = new DefaultChannelConfig(this);
+        private volatile boolean open = true;
+        private volatile boolean active;
+        private SharedMemoryAddress localAddress;
+        private Region region;
+        // 各槽位当前的子 Channel，子 Channel 在各自的 EventLoop 上关闭
+        private AtomicReferenceArray<SharedMemoryChannel> children;
+        // 各槽位客户端的心跳，只在心跳线程上使用
+        private PeerWatch[] clients;
+        private ScheduledFuture<?> heartbeat;
+        private boolean readPending;
+
+        @Override
+        public ChannelConfig config() {
+            return config;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public boolean isActive() {
+            return open && active;
+        }
+
+        @Override
+        protected boolean isCompatible(EventLoop loop) {
+            return loop instanceof SharedMemoryEventLoop;
+        }
+
+        @Override
+        protected SocketAddress localAddress0() {
+            return localAddress;
+        }
+
+        @Override
+        protected void doRegister() {
+            ((SharedMemoryEventLoop) eventLoop()).add(this);
+        }
+
+        @Override
+        protected void doDeregister() {
+            ((SharedMemoryEventLoop) eventLoop()).remove(this);
+        }
+
+        @Override
+        protected void doBind(SocketAddress address) throws Exception {
+            SharedMemoryAddress shmAddress = (SharedMemoryAddress) address;
+            region = Region.create(shmAddress);
+            children = new AtomicReferenceArray<>(region.slots);
+            clients = new PeerWatch[region.slots];
+            for (int slot = 0; slot < region.slots; slot++) {
+                clients[slot] = new PeerWatch();
+            }
+            region.beatServer();
+            localAddress = shmAddress;
+            active = true;
+            heartbeat = heartbeatExecutor.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_INTERVAL_NANOS,
+                HEARTBEAT_INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        protected void doBeginRead() {
+            readPending = true;
+        }
+
+        @Override
+        protected void doClose() {
+            open = false;
+            if (heartbeat != null) {
+                heartbeat.cancel(false);
+                heartbeat = null;
+            }
+            if (active) {
+                active = false;
+                // 通知已连接的客户端
+                region.closeServer();
+            }
+        }
+
+        @Override
+        public boolean isDataChannel() {
+            return false;
+        }
+
+        @Override
+        public boolean poll() {
+            if (!isActive()) {
+                return false;
+            }
+            boolean accepted = false;
+            for (int slot = 0; slot < region.slots; slot++) {
+                int state = region.state(slot);
+                if (state == SLOT_CLAIMED && readPending) {
+                    if (region.compareAndSetState(slot, SLOT_CLAIMED, SLOT_CONNECTED)) {
+                        SharedMemoryChannel child = new SharedMemoryChannel(this, region, slot);
+                        children.set(slot, child);
+                        accepted = true;
+                        pipeline().fireChannelRead(child);
+                    }
+                } else if (state == SLOT_CLOSED_BY_CLIENT && children.get(slot) == null) {
+                    // 客户端在连接被接受之前关闭
+                    region.free(slot, SLOT_CLOSED_BY_CLIENT);
+                }
+            }
+            if (accepted) {
+                if (!config.isAutoRead()) {
+                    readPending = false;
+                }
+                pipeline().fireChannelReadComplete();
+            }
+            return accepted;
+        }
+
+        /**
+         * 心跳线程：递增服务端心跳，回收客户端已退出的槽位；客户端关闭的槽位由 poll 释放
+         */
+        private void heartbeat() {
+            if (!isActive()) {
+                return;
+            }
+            region.beatServer();
+            long now = System.nanoTime();
+            for (int slot = 0; slot < region.slots; slot++) {
+                int state = region.state(slot);
+                if (clients[slot].isDead(state, region.heartbeat(slot), now)
+                    && state != SLOT_FREE && state != SLOT_CLOSED_BY_CLIENT) {
+                    reclaim(slot, state);
+                }
+            }
+        }
+
+        /**
+         * 客户端已退出（进程崩溃或被杀死）、不会再释放槽位：关闭对应的子 Channel 并回收槽位
+         */
+        private void reclaim(int slot, int state) {
+            log.warn("Client on shared memory slot {} of {} stopped responding, reclaiming the slot", slot,
+                localAddress.path);
+            SharedMemoryChannel child = children.get(slot);
+            if (child != null) {
+                child.peerDied();
+            } else {
+                region.free(slot, state);
+            }
+        }
+
+        void childClosed(int slot, SharedMemoryChannel child) {
+            children.compareAndSet(slot, child, null);
+        }
+    }
+
+    /**
+     * 连接 Channel：客户端通过 Bootstrap 创建并连接，服务端由 SharedMemoryServerChannel 接受时创建；
+     * 出站 ByteBuf 写入本端的发送环，发送环已满时保留在出站缓冲区，下次轮询时继续写出
+     */
+    public static final class SharedMemoryChannel extends AbstractChannel implements Pollable {
+        private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+
+        private final ChannelConfig config = new DefaultChannelConfig(this);
+        private final boolean server;
+        private volatile boolean open = true;
+        private volatile boolean active;
+        private Region region;
+        private int slot;
+        private JsonRpcRingBuffer inbound;
+        private JsonRpcRingBuffer outbound;
+        private SharedMemoryAddress address;
+        private boolean readPending;
+        private boolean writePending;
+        private ChannelPromise connectPromise;
+        private ScheduledFuture<?> connectTimeout;
+        // 客户端：心跳任务；本端上次心跳的时间与服务端的心跳只在心跳线程上使用
+        private ScheduledFuture<?> heartbeat;
+        private long lastBeatNanos;
+        private PeerWatch serverWatch;
+        // 服务端：客户端已退出，关闭时直接回收槽位
+        private boolean peerDead;
+        // 客户端：长时间未能发送心跳，槽位可能已被服务端回收，关闭时不再访问槽位
+        private volatile boolean expired;
+
+        /**
+         * 客户端 Channel
+         */
+        public SharedMemoryChannel() {
+            super(null);
+            this.server = false;
+        }
+
+        SharedMemoryChannel(SharedMemoryServerChannel parent, Region region, int slot) {
+            super(parent);
+            this.server = true;
+            this.address = parent.localAddress;
+            attach(region, slot);
+            this.active = true;
+        }
+
+        private void attach(Region region, int slot) {
+            this.region = region;
+            this.slot = slot;
+            this.inbound = region.ring(slot, server);
+            this.outbound = region.ring(slot, !server);
+        }
+
+        @Override
+        public ChannelConfig config() {
+            return config;
+        }
+
+        @Override
+        public ChannelMetadata metadata() {
+            return METADATA;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public boolean isActive() {
+            return open && active;
+        }
+
+        @Override
+        protected AbstractUnsafe newUnsafe() {
+            return new SharedMemoryUnsafe();
+        }
+
+        @Override
+        protected boolean isCompatible(EventLoop loop) {
+            return loop instanceof SharedMemoryEventLoop;
+        }
+
+        @Override
+        protected SocketAddress localAddress0() {
+            return address;
+        }
+
+        @Override
+        protected SocketAddress remoteAddress0() {
+            return address;
+        }
+
+        @Override
+        protected void doRegister() {
+            ((SharedMemoryEventLoop) eventLoop()).add(this);
+        }
+
+        @Override
+        protected void doDeregister() {
+            ((SharedMemoryEventLoop) eventLoop()).remove(this);
+        }
+
+        @Override
+        protected void doBind(SocketAddress localAddress) {
+            throw new UnsupportedOperationException("Shared memory channels cannot be bound");
+        }
+
+        @Override
+        protected void doDisconnect() {
+            doClose();
+        }
+
+        @Override
+        protected void doClose() {
+            open = false;
+            active = false;
+            if (connectPromise != null) {
+                connectPromise.tryFailure(new ConnectException("Shared memory channel closed before the server accepted it"));
+                connectPromise = null;
+            }
+            if (connectTimeout != null) {
+                connectTimeout.cancel(false);
+                connectTimeout = null;
+            }
+            if (heartbeat != null) {
+                heartbeat.cancel(false);
+                heartbeat = null;
+            }
+            if (region != null && !expired) {
+                if (peerDead) {
+                    int state = region.state(slot);
+                    if (state != SLOT_FREE) {
+                        region.free(slot, state);
+                    }
+                } else {
+                    region.close(slot, server);
+                }
+                if (server) {
+                    ((SharedMemoryServerChannel) parent()).childClosed(slot, this);
+                }
+            }
+        }
+
+        @Override
+        protected void doBeginRead() {
+            readPending = true;
+        }
+
+        @Override
+        protected Object filterOutboundMessage(Object msg) {
+            if (msg instanceof ByteBuf) {
+                return msg;
+            }
+            throw new UnsupportedOperationException("unsupported message type: " + StringUtil.simpleClassName(msg));
+        }
+
+        @Override
+        protected void doWrite(ChannelOutboundBuffer in) {
+            for (;;) {
+                ByteBuf buf = (ByteBuf) in.current();
+                if (buf == null) {
+                    writePending = false;
+                    return;
+                }
+                if (!buf.isReadable()) {
+                    in.remove();
+                    continue;
+                }
+                int written = outbound.write(buf, buf.readerIndex(), buf.readableBytes());
+                if (written == 0) {
+                    // 发送环已满，等待对端读取
+                    writePending = true;
+                    return;
+                }
+                in.removeBytes(written);
+            }
+        }
+
+        @Override
+        public boolean isDataChannel() {
+            return true;
+        }
+
+        /**
+         * 服务端：对端客户端已退出，在本 Channel 的 EventLoop 上关闭并回收槽位
+         */
+        void peerDied() {
+            eventLoop().execute(() -> {
+                peerDead = true;
+                unsafe().close(unsafe().voidPromise());
+            });
+        }
+
+        @Override
+        public boolean poll() {
+            if (!open) {
+                return false;
+            }
+            if (connectPromise != null) {
+                return pollConnect();
+            }
+            if (!active) {
+                return false;
+            }
+            boolean busy = false;
+            if (writePending) {
+                ((SharedMemoryUnsafe) unsafe()).flushPending();
+            }
+            if (readPending) {
+                busy = readInbound();
+            }
+            if (region.state(slot) != SLOT_CONNECTED || !region.isServerOpen()) {
+                unsafe().close(unsafe().voidPromise());
+                return true;
+            }
+            return busy;
+        }
+
+        /**
+         * 客户端心跳线程：递增本槽位的心跳，服务端已退出或本端心跳中断过久时关闭连接
+         */
+        private void heartbeat() {
+            if (!open) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (now - lastBeatNanos >= PEER_TIMEOUT_NANOS) {
+                // 本进程停顿过久（如长时间 GC），服务端可能已把槽位回收给其他客户端
+                log.warn("Shared memory connection to {} missed its heartbeat for too long, closing it", address.path);
+                expired = true;
+                close();
+                return;
+            }
+            region.beat(slot);
+            lastBeatNanos = now;
+            if (serverWatch.isDead(SERVER_OPEN, region.serverHeartbeat(), now)) {
+                log.warn("JSON-RPC server on {} stopped responding, closing the connection", address.path);
+                close();
+            }
+        }
+
+        private boolean readInbound() {
+            boolean read = false;
+            for (int i = 0; i < MAX_READS_PER_POLL && readPending; i++) {
+                ByteBuf buf = inbound.read(config.getAllocator(), MAX_READ_BYTES);
+                if (buf == null) {
+                    break;
+                }
+                read = true;
+                if (!config.isAutoRead()) {
+                    readPending = false;
+                }
+                pipeline().fireChannelRead(buf);
+            }
+            if (read) {
+                pipeline().fireChannelReadComplete();
+            }
+            return read;
+        }
+
+        /**
+         * 客户端：等待服务端接受占用的槽位
+         */
+        private boolean pollConnect() {
+            int state = region.state(slot);
+            if (state == SLOT_CLAIMED && region.isServerOpen()) {
+                return false;
+            }
+            ChannelPromise promise = connectPromise;
+            connectPromise = null;
+            if (connectTimeout != null) {
+                connectTimeout.cancel(false);
+                connectTimeout = null;
+            }
+            if (state != SLOT_CONNECTED) {
+                promise.tryFailure(new ConnectException("JSON-RPC server on " + address.path + " closed the connection"));
+                unsafe().close(unsafe().voidPromise());
+                return true;
+            }
+            active = true;
+            if (promise.trySuccess()) {
+                pipeline().fireChannelActive();
+            } else {
+                unsafe().close(unsafe().voidPromise());
+            }
+            return true;
+        }
+
+        private final class SharedMemoryUnsafe extends AbstractUnsafe {
+            @Override
+            public void connect(SocketAddress remoteAddress, SocketAddress localAddress, ChannelPromise promise) {
+                if (!promise.setUncancellable() || !ensureOpen(promise)) {
+                    return;
+                }
+                if (connectPromise != null) {
+                    promise.setFailure(new ConnectionPendingException());
+                    return;
+                }
+                try {
+                    SharedMemoryAddress remote = (SharedMemoryAddress) remoteAddress;
+                    Region opened = Region.open(remote);
+                    int claimed = opened.claim();
+                    if (claimed < 0) {
+                        throw new ConnectException("No free connection slot in " + remote.path);
+                    }
+                    address = remote;
+                    attach(opened, claimed);
+                    opened.beat(claimed);
+                    lastBeatNanos = System.nanoTime();
+                    serverWatch = new PeerWatch();
+                    heartbeat = heartbeatExecutor.scheduleAtFixedRate(SharedMemoryChannel.this::heartbeat,
+                        HEARTBEAT_INTERVAL_NANOS, HEARTBEAT_INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+                    connectPromise = promise;
+                    int timeoutMillis = config.getConnectTimeoutMillis();
+                    if (timeoutMillis > 0) {
+                        connectTimeout = eventLoop().schedule(() -> {
+                            ChannelPromise pending = connectPromise;
+                            if (pending != null && pending.tryFailure(
+                                new ConnectTimeoutException("connection timed out: " + remote))) {
+                                close(voidPromise());
+                            }
+                        }, timeoutMillis, TimeUnit.MILLISECONDS);
+                    }
+                } catch (Throwable t) {
+                    promise.tryFailure(annotateConnectException(t, remoteAddress));
+                    closeIfClosed();
+                }
+            }
+
+            void flushPending() {
+                flush0();
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.lixq.jsonrpc;
+
+import com.lixq.jsonrpc.core.JsonRpcCacheKey;
+import com.lixq.jsonrpc.core.RpcResponse;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 单个方法的请求合并（single-flight）
+ * 相同键的调用在执行期间到达时不再调用服务方法，而是等待正在执行的那次调用并共享其响应；
+ * 调用结束即移除，不缓存结果。等待方不阻塞线程，响应在执行方完成时由回调写出
+ */
+public class JsonRpcSingleFlight {
+    private final String methodName;
+    private final JsonRpcCacheKey keyMode;
+    // 需要编码响应的调用与 LOCAL 调用分开合并：前者的结果可能是缓存的序列化字节，后者需要原始对象
+    private final Map<String, CompletableFuture<RpcResponse>> flights = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<RpcResponse>> localFlights = new ConcurrentHashMap<>();
+    private final LongAdder executionCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+
+    public JsonRpcSingleFlight(String methodName, JsonRpcCacheKey keyMode) {
+        this.methodName = methodName;
+        this.keyMode = keyMode;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * 键是否只取决于请求中的 params 原文，此时无需绑定参数
+     */
+    public boolean isKeyedBeforeBinding() {
+        return keyMode != JsonRpcCacheKey.CANONICAL;
+    }
+
+    /**
+     * 生成合并键，规则与结果缓存相同
+     */
+    public String key(Object params, Object[] args) throws IOException {
+        return JsonRpcResultCache.key(keyMode, params, args);
+    }
+
+    /**
+     * 以 key 执行调用：没有相同键的调用在执行时由当前线程执行 call，否则返回正在执行的调用的 Future；
+     * 返回的响应为共享对象，调用方需换上自己的 id
+     */
+    public CompletableFuture<RpcResponse> execute(String key, boolean local, Supplier<RpcResponse> call) {
+        Map<String, CompletableFuture<RpcResponse>> inFlight = local ? localFlights : flights;
+        CompletableFuture<RpcResponse> flight = new CompletableFuture<>();
+        CompletableFuture<RpcResponse> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalescedCount.increment();
+            return existing;
+        }
+        executionCount.increment();
+        RpcResponse response;
+        try {
+            response = call.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        // 先移除再完成，完成之后到达的调用重新执行，不会拿到旧结果
+        inFlight.remove(key, flight);
+        flight.complete(response);
+        return flight;
+    }
+
+    /**
+     * 当前正在执行的调用数
+     */
+    public int getInFlightCount() {
+        return flights.size() + localFlights.size();
+    }
+
+    /**
+     * 实际调用服务方法的次数
+     */
+    public long getExecutionCount() {
+        return executionCount.sum();
+    }
+
+    /**
+     * 合并到其他调用、未调用服务方法的次数
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "JsonRpcSingleFlight{method=" + methodName + ", inFlight=" + getInFlightCount()
+            + ", executions=" + getExecutionCount() + ", coalesced=" + getCoalescedCount() + "}";
+    }
+}
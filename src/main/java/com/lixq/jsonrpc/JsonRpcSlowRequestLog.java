@@ -0,0 +1,197 @@
+package com.lixq.jsonrpc;
+
+import com.lixq.jsonrpc.core.RpcRequest;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.AttributeKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 慢请求日志：按采样率对请求帧分阶段计时，从读到数据到响应写出的总耗时超过阈值时输出各阶段耗时。
+ * 只有被采样的帧才会计时，未采样的帧没有额外开销；日志按每秒条数限流，被限流的条数在下一条日志中给出
+ */
+public class JsonRpcSlowRequestLog {
+    private static final Logger log = LoggerFactory.getLogger(JsonRpcSlowRequestLog.class);
+    private static final AttributeKey<long[]> READ_START = AttributeKey.valueOf("jsonrpc.readStart");
+    private static final ChannelHandler READ_TIMER = new ReadTimer();
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 计时的阶段；批量请求中多个元素的同一阶段累加，并行处理时各阶段之和可能超过总耗时
+     */
+    enum Stage {
+        // 从读到数据到帧交给处理器：分帧、解压、HTTP 聚合等
+        DECODE,
+        // 解析请求信封
+        PARSE,
+        // 在业务执行器中排队
+        QUEUE,
+        // 在 JsonRpcServiceRegistry 中查找方法
+        LOOKUP,
+        // 绑定参数
+        BIND,
+        // 调用服务方法
+        INVOKE,
+        // 序列化结果与响应
+        SERIALIZE,
+        // 从提交写出到写出完成（ChannelFuture），包括等待发送缓冲区
+        WRITE
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int maxLogsPerSecond;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger windowCount = new AtomicInteger();
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * @param thresholdMillis  超过该耗时的请求输出日志
+     * @param sampleRate       计时的请求帧比例，0 ~ 1
+     * @param maxLogsPerSecond 每秒最多输出的日志条数
+     */
+    public JsonRpcSlowRequestLog(long thresholdMillis, double sampleRate, int maxLogsPerSecond) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.sampleRate = Math.min(1, Math.max(0, sampleRate));
+        this.maxLogsPerSecond = Math.max(1, maxLogsPerSecond);
+    }
+
+    /**
+     * 在 Channel 的最前面记录每次读到数据的时间，用于计算 DECODE 阶段
+     */
+    static void addReadTimer(Channel channel) {
+        channel.pipeline().addFirst(READ_TIMER);
+    }
+
+    /**
+     * 按采样率为收到的帧开始计时，未采样时返回 null
+     */
+    Trace trace(Channel channel) {
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return null;
+        }
+        long now = System.nanoTime();
+        long[] readStart = channel.attr(READ_START).get();
+        Trace trace = new Trace(readStart != null ? readStart[0] : now, channel);
+        trace.add(Stage.DECODE, now - trace.startNanos);
+        return trace;
+    }
+
+    /**
+     * 请求帧处理结束（响应已写出或无需响应），超过阈值时输出日志
+     */
+    void finish(Trace trace) {
+        long elapsed = System.nanoTime() - trace.startNanos;
+        if (elapsed < thresholdNanos || !tryAcquire()) {
+            return;
+        }
+        long dropped = suppressed.sumThenReset();
+        log.warn("Slow JSON-RPC request from {}: {} took {} ms [{}]{}", trace.channel.remoteAddress(), trace.describe(),
+            millis(elapsed), trace.stages(), dropped > 0 ? ", " + dropped + " slow request log(s) suppressed" : "");
+    }
+
+    private boolean tryAcquire() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            windowCount.set(0);
+        }
+        if (windowCount.incrementAndGet() <= maxLogsPerSecond) {
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    /**
+     * 单个请求帧的各阶段耗时，批量请求的元素可能在多个线程上同时累加
+     */
+    static final class Trace {
+        private final long startNanos;
+        private final Channel channel;
+        private final AtomicLongArray stages = new AtomicLongArray(STAGES.length);
+        private volatile RpcRequest[] requests;
+
+        private Trace(long startNanos, Channel channel) {
+            this.startNanos = startNanos;
+            this.channel = channel;
+        }
+
+        void setRequests(RpcRequest[] requests) {
+            this.requests = requests;
+        }
+
+        void add(Stage stage, long nanos) {
+            stages.addAndGet(stage.ordinal(), nanos);
+        }
+
+        /**
+         * 记录从 since 到当前的耗时，返回当前时间作为下一阶段的起点
+         */
+        long lap(Stage stage, long since) {
+            long now = System.nanoTime();
+            add(stage, now - since);
+            return now;
+        }
+
+        private String describe() {
+            RpcRequest[] batch = requests;
+            if (batch == null) {
+                return "unparsed request";
+            }
+            if (batch.length == 1) {
+                return "method " + batch[0].getMethod() + " (id " + batch[0].getId() + ")";
+            }
+            Set<String> methods = new LinkedHashSet<>();
+            for (RpcRequest request : batch) {
+                methods.add(request.getMethod());
+            }
+            return "batch of " + batch.length + " " + methods;
+        }
+
+        private String stages() {
+            StringBuilder sb = new StringBuilder();
+            for (Stage stage : STAGES) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(stage.name().toLowerCase(Locale.ROOT)).append('=').append(millis(stages.get(stage.ordinal())));
+            }
+            return sb.toString();
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static final class ReadTimer extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            // 只在 EventLoop 上读写，复用同一个数组避免每次读取装箱
+            long[] readStart = ctx.channel().attr(READ_START).get();
+            if (readStart == null) {
+                readStart = new long[1];
+                ctx.channel().attr(READ_START).set(readStart);
+            }
+            readStart[0] = System.nanoTime();
+            super.channelRead(ctx, msg);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.lixq.jsonrpc;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 服务端推送的事件流
+ * 服务方法返回 JsonRpcStream 时，WebSocket 连接上的调用即为订阅：响应结果为订阅 id，
+ * 之后 publish 的每个事件以 rpc.subscription 通知推送给订阅方，客户端调用 rpc.unsubscribe 取消订阅；
+ * 以通知（不带 id）调用时不建立订阅。
+ * publish 只将事件放入每个订阅方的有界队列，不会被慢消费者阻塞
+ */
+public class JsonRpcStream<T> {
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private volatile boolean completed;
+
+    /**
+     * 向当前所有订阅方发布事件，事件只序列化一次
+     */
+    public void publish(T event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Event published = new Event(event);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.onNext(published);
+        }
+    }
+
+    /**
+     * 结束事件流：已入队的事件推送完后移除所有订阅
+     */
+    public void complete() {
+        completed = true;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.onComplete();
+        }
+        subscribers.clear();
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * 当前订阅方数量
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    void subscribe(Subscriber subscriber) {
+        subscribers.add(subscriber);
+        // 与 complete() 并发时由这里补发结束信号
+        if (completed && subscribers.remove(subscriber)) {
+            subscriber.onComplete();
+        }
+    }
+
+    void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    interface Subscriber {
+        void onNext(Event event);
+
+        void onComplete();
+    }
+
+    /**
+     * 已发布的事件，推送给多个订阅方时共享同一份序列化结果
+     */
+    static final class Event {
+        private final Object value;
+        private volatile byte[] json;
+
+        Event(Object value) {
+            this.value = value;
+        }
+
+        byte[] toJson(ObjectMapper objectMapper) throws JsonProcessingException {
+            byte[] bytes = json;
+            if (bytes == null) {
+                bytes = objectMapper.writeValueAsBytes(value);
+                json = bytes;
+            }
+            return bytes;
+        }
+    }
+}
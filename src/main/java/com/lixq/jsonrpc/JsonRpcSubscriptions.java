@@ -0,0 +1,213 @@
+package com.lixq.jsonrpc;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lixq.jsonrpc.core.JsonRpcEncoding;
+import com.lixq.jsonrpc.core.JsonRpcOverflowPolicy;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个连接上的订阅
+ * 每个订阅持有有界事件队列：发布线程只入队并按需调度一次排空，排空在连接的 EventLoop 上执行，
+ * Channel 不可写时暂停，可写后继续；队列满时按溢出策略丢弃最旧的事件（CONFLATE）或断开连接（DISCONNECT）
+ */
+public class JsonRpcSubscriptions {
+    private static final Logger log = LoggerFactory.getLogger(JsonRpcSubscriptions.class);
+
+    public static final String NOTIFICATION_METHOD = "rpc.subscription";
+    public static final String UNSUBSCRIBE_METHOD = "rpc.unsubscribe";
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    private final Channel channel;
+    private final ObjectMapper objectMapper = JsonRpcEncodings.codec(JsonRpcEncoding.JSON).getObjectMapper();
+    private final int queueCapacity;
+    private final JsonRpcOverflowPolicy overflowPolicy;
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong idSequence = new AtomicLong();
+    // 因 CONFLATE 策略被丢弃的事件数
+    private final LongAdder conflatedCount = new LongAdder();
+
+    public JsonRpcSubscriptions(Channel channel, int queueCapacity, JsonRpcOverflowPolicy overflowPolicy) {
+        this.channel = channel;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * 订阅事件流；订阅在 start() 之前只入队不推送，保证订阅响应先于第一条通知到达
+     */
+    public Subscription subscribe(JsonRpcStream<?> stream) {
+        Subscription subscription = new Subscription(Long.toHexString(idSequence.incrementAndGet()), stream);
+        subscriptions.put(subscription.id, subscription);
+        stream.subscribe(subscription);
+        return subscription;
+    }
+
+    /**
+     * 取消订阅，订阅不存在时返回 false
+     */
+    public boolean unsubscribe(String id) {
+        Subscription subscription = subscriptions.get(id);
+        if (subscription == null) {
+            return false;
+        }
+        subscription.cancel();
+        return true;
+    }
+
+    /**
+     * Channel 恢复可写后继续推送各订阅积压的事件
+     */
+    public void drainAll() {
+        for (Subscription subscription : subscriptions.values()) {
+            subscription.scheduleDrain();
+        }
+    }
+
+    /**
+     * 连接关闭时取消全部订阅
+     */
+    public void cancelAll() {
+        for (Subscription subscription : subscriptions.values()) {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * 当前订阅数
+     */
+    public int size() {
+        return subscriptions.size();
+    }
+
+    /**
+     * 因队列已满而被合并丢弃的事件数
+     */
+    public long getConflatedCount() {
+        return conflatedCount.sum();
+    }
+
+    /**
+     * 单个订阅，序列化为订阅 id
+     */
+    public final class Subscription implements JsonRpcStream.Subscriber {
+        private final String id;
+        private final JsonRpcStream<?> stream;
+        private final ArrayBlockingQueue<JsonRpcStream.Event> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        // 通知前缀：{"jsonrpc":"2.0","method":"rpc.subscription","params":{"subscription":"<id>","result":
+        private final byte[] prefix;
+        private volatile boolean started;
+        private volatile boolean completed;
+        private volatile boolean cancelled;
+
+        Subscription(String id, JsonRpcStream<?> stream) {
+            this.id = id;
+            this.stream = stream;
+            this.prefix = ("{\"jsonrpc\":\"2.0\",\"method\":\"" + NOTIFICATION_METHOD
+                + "\",\"params\":{\"subscription\":\"" + id + "\",\"result\":").getBytes(StandardCharsets.UTF_8);
+        }
+
+        @JsonValue
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * 订阅响应写出后开始推送
+         */
+        public void start() {
+            started = true;
+            scheduleDrain();
+        }
+
+        public void cancel() {
+            cancelled = true;
+            stream.unsubscribe(this);
+            subscriptions.remove(id, this);
+            queue.clear();
+        }
+
+        @Override
+        public void onNext(JsonRpcStream.Event event) {
+            if (cancelled) {
+                return;
+            }
+            while (!queue.offer(event)) {
+                if (overflowPolicy == JsonRpcOverflowPolicy.DISCONNECT) {
+                    log.warn("Subscriber {} on {} cannot keep up, closing connection", id, channel.remoteAddress());
+                    cancel();
+                    channel.close();
+                    return;
+                }
+                if (queue.poll() != null) {
+                    conflatedCount.increment();
+                }
+            }
+            if (started) {
+                scheduleDrain();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            scheduleDrain();
+        }
+
+        void scheduleDrain() {
+            if (started && !cancelled && drainScheduled.compareAndSet(false, true)) {
+                channel.eventLoop().execute(this::drain);
+            }
+        }
+
+        /**
+         * 在 EventLoop 上推送积压事件，Channel 不可写时停止，等待 drainAll 再次调度
+         */
+        private void drain() {
+            drainScheduled.set(false);
+            if (cancelled) {
+                return;
+            }
+            boolean written = false;
+            JsonRpcStream.Event event;
+            while (channel.isWritable() && (event = queue.poll()) != null) {
+                ByteBuf notification = encode(event);
+                if (notification != null) {
+                    channel.write(notification);
+                    written = true;
+                }
+            }
+            if (written) {
+                channel.flush();
+            }
+            if (completed && queue.isEmpty()) {
+                subscriptions.remove(id, this);
+            }
+        }
+
+        private ByteBuf encode(JsonRpcStream.Event event) {
+            byte[] result;
+            try {
+                result = event.toJson(objectMapper);
+            } catch (JsonProcessingException e) {
+                log.error("Error serializing event for subscription {}", id, e);
+                return null;
+            }
+            ByteBuf buf = channel.alloc().ioBuffer(prefix.length + result.length + 2);
+            return buf.writeBytes(prefix).writeBytes(result).writeByte('}').writeByte('}');
+        }
+    }
+}
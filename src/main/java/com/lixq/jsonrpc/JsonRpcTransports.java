@@ -0,0 +1,230 @@
+package com.lixq.jsonrpc;
+
+import com.lixq.jsonrpc.core.JsonRpcTransport;
+import com.lixq.jsonrpc.core.JsonRpcWaitStrategy;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.kqueue.KQueue;
+import io.netty.channel.kqueue.KQueueDomainSocketChannel;
+import io.netty.channel.kqueue.KQueueEventLoopGroup;
+import io.netty.channel.kqueue.KQueueServerDomainSocketChannel;
+import io.netty.channel.kqueue.KQueueServerSocketChannel;
+import io.netty.channel.kqueue.KQueueSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * 传输层工厂
+ * 根据配置和运行平台选择 EventLoopGroup 与 Channel 实现，原生传输不可用时回退为 NIO
+ */
+public final class JsonRpcTransports {
+    private static final Logger log = LoggerFactory.getLogger(JsonRpcTransports.class);
+
+    private static final String IO_URING_PACKAGE = "io.netty.incubator.channel.uring.";
+
+    private JsonRpcTransports() {
+    }
+
+    /**
+     * 解析实际使用的传输实现
+     */
+    public static Transport resolve(JsonRpcTransport preferred) {
+        JsonRpcTransport transport = preferred != null ? preferred : JsonRpcTransport.AUTO;
+        switch (transport) {
+            case IO_URING:
+                if (isIoUringAvailable()) {
+                    return ioUring();
+                }
+                log.warn("io_uring transport is not available, falling back to NIO");
+                return nio();
+            case EPOLL:
+                if (Epoll.isAvailable()) {
+                    return epoll();
+                }
+                log.warn("Epoll transport is not available, falling back to NIO", Epoll.unavailabilityCause());
+                return nio();
+            case KQUEUE:
+                if (KQueue.isAvailable()) {
+                    return kqueue();
+                }
+                log.warn("KQueue transport is not available, falling back to NIO", KQueue.unavailabilityCause());
+                return nio();
+            case NIO:
+                return nio();
+            case AUTO:
+            default:
+                if (isIoUringAvailable()) {
+                    return ioUring();
+                }
+                if (Epoll.isAvailable()) {
+                    return epoll();
+                }
+                return KQueue.isAvailable() ? kqueue() : nio();
+        }
+    }
+
+    /**
+     * 解析 Unix 域套接字（IPC 协议）使用的传输实现：Linux 使用 epoll，macOS / BSD 使用 kqueue；
+     * NIO 与 io_uring 不支持域套接字，原生传输均不可用时抛出 IllegalStateException
+     */
+    public static Transport resolveDomainSocket(JsonRpcTransport preferred) {
+        Transport transport;
+        if (Epoll.isAvailable()) {
+            transport = epollDomainSocket();
+        } else if (KQueue.isAvailable()) {
+            transport = kqueueDomainSocket();
+        } else {
+            throw new IllegalStateException("Unix domain sockets require the epoll or kqueue native transport",
+                Epoll.unavailabilityCause());
+        }
+        if (preferred != null && preferred != JsonRpcTransport.AUTO && preferred != transport.getType()) {
+            log.warn("{} transport does not support Unix domain sockets, using {}", preferred, transport.getType());
+        }
+        return transport;
+    }
+
+    /**
+     * 共享内存（SHM 协议）使用的传输实现，由协议决定而非 JsonRpcTransport 选项，读端按 waitStrategy 等待新数据
+     */
+    public static Transport sharedMemory(JsonRpcWaitStrategy waitStrategy) {
+        return new Transport(null, JsonRpcSharedMemory.SharedMemoryServerChannel.class,
+            JsonRpcSharedMemory.SharedMemoryChannel.class) {
+            @Override
+            public EventLoopGroup newEventLoopGroup(int threads) {
+                return new JsonRpcSharedMemory.SharedMemoryEventLoopGroup(threads, waitStrategy);
+            }
+        };
+    }
+
+    private static Transport nio() {
+        return new Transport(JsonRpcTransport.NIO, NioServerSocketChannel.class, NioSocketChannel.class) {
+            @Override
+            public EventLoopGroup newEventLoopGroup(int threads) {
+                return new NioEventLoopGroup(threads);
+            }
+        };
+    }
+
+    private static Transport epoll() {
+        return new Transport(JsonRpcTransport.EPOLL, EpollServerSocketChannel.class, EpollSocketChannel.class) {
+            @Override
+            public EventLoopGroup newEventLoopGroup(int threads) {
+                return new EpollEventLoopGroup(threads);
+            }
+        };
+    }
+
+    private static Transport epollDomainSocket() {
+        return new Transport(JsonRpcTransport.EPOLL, EpollServerDomainSocketChannel.class, EpollDomainSocketChannel.class) {
+            @Override
+            public EventLoopGroup newEventLoopGroup(int threads) {
+                return new EpollEventLoopGroup(threads);
+            }
+        };
+    }
+
+    private static Transport kqueue() {
+        return new Transport(JsonRpcTransport.KQUEUE, KQueueServerSocketChannel.class, KQueueSocketChannel.class) {
+            @Override
+            public EventLoopGroup newEventLoopGroup(int threads) {
+                return new KQueueEventLoopGroup(threads);
+            }
+        };
+    }
+
+    private static Transport kqueueDomainSocket() {
+        return new Transport(JsonRpcTransport.KQUEUE, KQueueServerDomainSocketChannel.class, KQueueDomainSocketChannel.class) {
+            @Override
+            public EventLoopGroup newEventLoopGroup(int threads) {
+                return new KQueueEventLoopGroup(threads);
+            }
+        };
+    }
+
+    /**
+     * io_uring 仍处于 incubator 阶段且为可选依赖，通过反射加载以免引入编译期依赖
+     */
+    @SuppressWarnings("unchecked")
+    private static Transport ioUring() {
+        try {
+            Class<? extends ServerChannel> serverChannelClass =
+                (Class<? extends ServerChannel>) Class.forName(IO_URING_PACKAGE + "IOUringServerSocketChannel");
+            Class<? extends Channel> channelClass =
+                (Class<? extends Channel>) Class.forName(IO_URING_PACKAGE + "IOUringSocketChannel");
+            Constructor<?> groupConstructor = Class.forName(IO_URING_PACKAGE + "IOUringEventLoopGroup").getConstructor(int.class);
+            return new Transport(JsonRpcTransport.IO_URING, serverChannelClass, channelClass) {
+                @Override
+                public EventLoopGroup newEventLoopGroup(int threads) {
+                    try {
+                        return (EventLoopGroup) groupConstructor.newInstance(threads);
+                    } catch (ReflectiveOperationException e) {
+                        throw new IllegalStateException("Cannot create io_uring event loop group", e);
+                    }
+                }
+            };
+        } catch (ReflectiveOperationException e) {
+            log.warn("Cannot load io_uring transport, falling back to NIO", e);
+            return nio();
+        }
+    }
+
+    private static boolean isIoUringAvailable() {
+        try {
+            return (Boolean) Class.forName(IO_URING_PACKAGE + "IOUring").getMethod("isAvailable").invoke(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * 选定的传输实现
+     */
+    public abstract static class Transport {
+        private final JsonRpcTransport type;
+        private final Class<? extends ServerChannel> serverChannelClass;
+        private final Class<? extends Channel> channelClass;
+
+        Transport(JsonRpcTransport type, Class<? extends ServerChannel> serverChannelClass, Class<? extends Channel> channelClass) {
+            this.type = type;
+            this.serverChannelClass = serverChannelClass;
+            this.channelClass = channelClass;
+        }
+
+        /**
+         * 创建 EventLoopGroup，threads 为 0 时使用 Netty 默认线程数
+         */
+        public abstract EventLoopGroup newEventLoopGroup(int threads);
+
+        /**
+         * 传输类型，共享内存传输（SHM 协议）为 null
+         */
+        public JsonRpcTransport getType() {
+            return type;
+        }
+
+        public Class<? extends ServerChannel> getServerChannelClass() {
+            return serverChannelClass;
+        }
+
+        public Class<? extends Channel> getChannelClass() {
+            return channelClass;
+        }
+
+        @Override
+        public String toString() {
+            return type != null ? type.name() : "SHARED_MEMORY";
+        }
+    }
+}
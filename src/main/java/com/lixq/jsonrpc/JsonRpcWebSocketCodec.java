@@ -0,0 +1,30 @@
+package com.lixq.jsonrpc;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+import java.util.List;
+
+/**
+ * WebSocket 消息编解码器，位于 WebSocketFrameAggregator 之后
+ * 入站的文本或二进制消息以 ByteBuf 交给处理器，出站的 ByteBuf 作为文本消息发送，均不复制内容
+ */
+public class JsonRpcWebSocketCodec extends MessageToMessageCodec<WebSocketFrame, ByteBuf> {
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
+        out.add(new TextWebSocketFrame(msg.retain()));
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, WebSocketFrame frame, List<Object> out) {
+        // Ping / Pong / Close 已由 WebSocketServerProtocolHandler 处理
+        if (frame instanceof TextWebSocketFrame || frame instanceof BinaryWebSocketFrame) {
+            out.add(frame.content().retain());
+        }
+    }
+}
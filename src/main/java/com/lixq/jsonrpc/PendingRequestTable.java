@@ -0,0 +1,232 @@
+package com.lixq.jsonrpc;
+
+import com.lixq.jsonrpc.core.RpcResponse;
+import io.netty.util.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 客户端待处理请求表
+ * 数字 id 按 id & mask 直接定位到环形槽位，注册与匹配都不需要装箱或计算 String 哈希；
+ * 槽位被更早的未完成请求占用时退化到溢出表。
+ * 线路上只使用连接分配的数字 id，调用方自定义的 id 只作为请求的 key 记录在独立的表中，用于按 key 取消与还原响应 id，
+ * 不参与响应匹配，因此两类 id 不会相互冲突
+ */
+public class PendingRequestTable {
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private final AtomicReferenceArray<PendingRequest> slots;
+    private final int mask;
+    private final Map<Long, PendingRequest> overflow = new ConcurrentHashMap<>();
+    private final Map<String, PendingRequest> named = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public PendingRequestTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 槽位数量，向上取整为 2 的幂
+     */
+    public PendingRequestTable(int capacity) {
+        int slotCount = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        this.mask = slotCount - 1;
+    }
+
+    /**
+     * 注册数字 id 的请求
+     */
+    public PendingRequest register(long id) {
+        return register(id, null);
+    }
+
+    /**
+     * 以数字 id 注册调用方自定义 id（key）的请求，key 相同的未完成请求只能按 key 取消最后注册的一个
+     */
+    public PendingRequest register(long id, String key) {
+        PendingRequest request = new PendingRequest(this, id, key);
+        if (key != null) {
+            named.put(key, request);
+        }
+        if (!slots.compareAndSet(slot(id), null, request)) {
+            overflow.put(id, request);
+        }
+        size.incrementAndGet();
+        return request;
+    }
+
+    /**
+     * 移除并返回数字 id 对应的请求
+     */
+    public PendingRequest remove(long id) {
+        int slot = slot(id);
+        PendingRequest request = slots.get(slot);
+        if (request == null || request.id != id || !slots.compareAndSet(slot, request, null)) {
+            request = overflow.isEmpty() ? null : overflow.remove(id);
+        }
+        if (request != null) {
+            removed(request);
+        }
+        return request;
+    }
+
+    /**
+     * 移除并返回响应 id 对应的请求，响应 id 只按连接分配的数字 id 匹配
+     */
+    public PendingRequest remove(String id) {
+        long numericId = id != null ? parseId(id) : -1;
+        return numericId >= 0 ? remove(numericId) : null;
+    }
+
+    /**
+     * 移除并返回调用方自定义 id 对应的请求
+     */
+    public PendingRequest removeByKey(String key) {
+        PendingRequest request = key != null ? named.get(key) : null;
+        return request != null && remove(request) ? request : null;
+    }
+
+    /**
+     * 移除指定的请求（仍在表中时）
+     */
+    public boolean remove(PendingRequest request) {
+        boolean removed = slots.compareAndSet(slot(request.id), request, null)
+            || (!overflow.isEmpty() && overflow.remove(request.id, request));
+        if (removed) {
+            removed(request);
+        }
+        return removed;
+    }
+
+    private void removed(PendingRequest request) {
+        if (request.key != null) {
+            named.remove(request.key, request);
+        }
+        size.decrementAndGet();
+    }
+
+    /**
+     * 移除并返回全部请求
+     */
+    public List<PendingRequest> drain() {
+        List<PendingRequest> drained = new ArrayList<>();
+        for (int i = 0; i < slots.length(); i++) {
+            PendingRequest request = slots.getAndSet(i, null);
+            if (request != null) {
+                drained.add(request);
+            }
+        }
+        for (PendingRequest request : overflow.values()) {
+            if (overflow.remove(request.id, request)) {
+                drained.add(request);
+            }
+        }
+        named.clear();
+        size.addAndGet(-drained.size());
+        return drained;
+    }
+
+    /**
+     * 当前未完成的请求数
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private int slot(long id) {
+        return (int) id & mask;
+    }
+
+    /**
+     * 不分配对象地将十进制 id 解析为 long，非数字返回 -1
+     */
+    static long parseId(String id) {
+        int length = id.length();
+        if (length == 0 || length > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * 待处理请求，本身即为返回给调用方的 Future，不额外分配包装对象；
+     * 调用方自行结束 Future（cancel、complete、orTimeout 等）时同时移出待处理表并取消超时任务，
+     * 不会一直占用槽位与未完成请求数
+     */
+    public static class PendingRequest extends CompletableFuture<RpcResponse> {
+        private final PendingRequestTable table;
+        private final long id;
+        private final String key;
+        // 超时任务，请求完成时取消以尽早释放时间轮槽位
+        private volatile Timeout timeout;
+
+        PendingRequest(PendingRequestTable table, long id, String key) {
+            this.table = table;
+            this.id = id;
+            this.key = key;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * 调用方自定义的 id，未指定时为 null
+         */
+        public String getKey() {
+            return key;
+        }
+
+        void setTimeout(Timeout timeout) {
+            this.timeout = timeout;
+        }
+
+        void cancelTimeout() {
+            Timeout current = timeout;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        @Override
+        public boolean complete(RpcResponse value) {
+            return released(super.complete(value));
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable ex) {
+            return released(super.completeExceptionally(ex));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return released(super.cancel(mayInterruptIfRunning));
+        }
+
+        /**
+         * 由本次调用结束时移出待处理表，收到响应或超时的请求已先被移出，此处不再生效
+         */
+        private boolean released(boolean completed) {
+            if (completed) {
+                cancelTimeout();
+                table.remove(this);
+            }
+            return completed;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.lixq.jsonrpc.core;
+
+/**
+ * 结果缓存与请求合并的键生成方式
+ */
+public enum JsonRpcCacheKey {
+    /**
+     * 按绑定后的方法参数生成规范化的键：位置参数与按名称传递的参数、对象字段顺序不同的同一组参数命中同一条目
+     */
+    CANONICAL,
+    /**
+     * 直接使用请求中的 params 原文，命中时无需绑定参数，但字段顺序不同的参数视为不同的键
+     */
+    RAW,
+    /**
+     * 忽略参数，方法的所有调用共用一个键，适用于无参数的查询
+     */
+    METHOD
+}
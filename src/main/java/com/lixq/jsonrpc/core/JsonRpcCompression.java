@@ -0,0 +1,23 @@
+package com.lixq.jsonrpc.core;
+
+/**
+ * TCP 帧压缩算法，由客户端在连接握手时协商，需要长度前缀分帧
+ */
+public enum JsonRpcCompression {
+    /**
+     * 不压缩
+     */
+    NONE,
+    /**
+     * LZ4（org.lz4:lz4-java），压缩率较低但速度最快
+     */
+    LZ4,
+    /**
+     * Zstandard（com.github.luben:zstd-jni）
+     */
+    ZSTD,
+    /**
+     * JDK 内置的 Deflate
+     */
+    DEFLATE
+}
@@ -0,0 +1,24 @@
+package com.lixq.jsonrpc.core;
+
+/**
+ * 消息编码格式，信封结构（RpcRequest/RpcResponse）与 JSON 保持一致
+ * 二进制格式需要使用长度前缀分帧，并在类路径中引入对应的 Jackson 数据格式模块
+ */
+public enum JsonRpcEncoding {
+    /**
+     * 文本 JSON
+     */
+    JSON,
+    /**
+     * Smile（jackson-dataformat-smile）
+     */
+    SMILE,
+    /**
+     * CBOR（jackson-dataformat-cbor）
+     */
+    CBOR,
+    /**
+     * MessagePack（org.msgpack:jackson-dataformat-msgpack）
+     */
+    MSGPACK
+}
@@ -0,0 +1,19 @@
+package com.lixq.jsonrpc.core;
+
+/**
+ * 服务方法的执行模式
+ */
+public enum JsonRpcExecutionMode {
+    /**
+     * 直接在 Netty I/O 线程上执行
+     */
+    INLINE,
+    /**
+     * 在有界业务线程池中执行
+     */
+    POOL,
+    /**
+     * 每个请求一个虚拟线程（JDK 21+），不支持时回退为 POOL
+     */
+    VIRTUAL
+}
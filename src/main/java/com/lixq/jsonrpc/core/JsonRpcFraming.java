@@ -0,0 +1,19 @@
+package com.lixq.jsonrpc.core;
+
+/**
+ * TCP 分帧方式
+ */
+public enum JsonRpcFraming {
+    /**
+     * 每条消息以换行符结尾，兼容原有协议
+     */
+    LINE,
+    /**
+     * 每条消息前加 4 字节大端长度字段，不扫描消息内容
+     */
+    LENGTH_PREFIXED,
+    /**
+     * 仅服务端：按连接首字节自动识别，JSON 文本起始字符为换行分帧，否则为长度前缀分帧；客户端按 LINE 处理
+     */
+    AUTO
+}
@@ -11,4 +11,44 @@ import java.lang.annotation.Target;
 public @interface JsonRpcMethod {
     String value();
     boolean required() default false;
+
+    /**
+     * 参数名称，用于按名称绑定 params 对象；未指定时使用编译期保留的参数名（-parameters）
+     */
+    String[] params() default {};
+
+    /**
+     * 结果缓存的有效期（毫秒），大于 0 时开启缓存；只适用于结果只取决于参数、没有副作用的查询方法
+     */
+    long cacheTtlMillis() default 0;
+
+    /**
+     * 结果缓存的最大条目数，超出时淘汰最久未使用的条目
+     */
+    int cacheMaxEntries() default 1024;
+
+    /**
+     * 结果缓存占用的最大字节数（按序列化后的结果计算），超出时淘汰最久未使用的条目
+     */
+    long cacheMaxBytes() default 16 * 1024 * 1024;
+
+    /**
+     * 结果缓存与请求合并的键生成方式
+     */
+    JsonRpcCacheKey cacheKey() default JsonRpcCacheKey.CANONICAL;
+
+    /**
+     * 请求合并：相同方法与参数的并发调用只执行一次，各调用方以自己的 id 收到同一结果；不缓存结果，
+     * 返回 JsonRpcStream 的方法不支持
+     */
+    boolean singleFlight() default false;
+
+    /**
+     * 可批量方法：方法只有一个 List 参数并返回等长、按相同顺序排列的 List，批量请求中同一方法的元素合并为一次调用。
+     * 每个调用的 params 绑定为 List 的元素类型（只含一个值的数组按该值绑定）；单独的调用以只含一个元素的 List 调用。
+     * 单个调用失败时，在结果 List 的对应位置放入异常对象（因此正常结果不能是 Throwable）：
+     * JsonRpcBindingException 返回 InvalidParams，可用于拒绝无效的参数值，其他异常返回 InternalError，错误信息均为异常的 message；
+     * 方法本身抛出异常或返回的 List 长度不符时，合并的所有调用都返回 InternalError
+     */
+    boolean batchable() default false;
 }
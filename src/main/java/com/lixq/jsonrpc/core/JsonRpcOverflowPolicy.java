@@ -0,0 +1,15 @@
+package com.lixq.jsonrpc.core;
+
+/**
+ * 订阅方事件队列已满时的处理策略
+ */
+public enum JsonRpcOverflowPolicy {
+    /**
+     * 丢弃队列中最旧的事件，只保留最新的事件，适合行情、状态等只关心最新值的数据
+     */
+    CONFLATE,
+    /**
+     * 取消订阅并断开该订阅方的连接
+     */
+    DISCONNECT
+}
@@ -2,7 +2,10 @@ package com.lixq.jsonrpc.core;
 
 public enum JsonRpcProtocol {
     HTTP,
+    HTTP2,
     TCP,
     WS,
-    IPC
+    IPC,
+    SHM,
+    LOCAL
 }
@@ -0,0 +1,15 @@
+package com.lixq.jsonrpc.core;
+
+/**
+ * 客户端连接池的连接选择策略
+ */
+public enum JsonRpcSelectionStrategy {
+    /**
+     * 选择未完成请求最少的连接
+     */
+    LEAST_PENDING,
+    /**
+     * 轮询选择连接
+     */
+    ROUND_ROBIN
+}
@@ -0,0 +1,27 @@
+package com.lixq.jsonrpc.core;
+
+/**
+ * Netty 传输实现
+ */
+public enum JsonRpcTransport {
+    /**
+     * 自动选择：io_uring（已引入 netty-incubator-transport-native-io_uring 时）> epoll > kqueue > NIO
+     */
+    AUTO,
+    /**
+     * JDK NIO Selector，所有平台可用
+     */
+    NIO,
+    /**
+     * Linux 原生 epoll，不可用时回退为 NIO
+     */
+    EPOLL,
+    /**
+     * macOS / BSD 原生 kqueue（需要 netty-transport-native-kqueue 的平台原生库），不可用时回退为 NIO
+     */
+    KQUEUE,
+    /**
+     * Linux io_uring（需要 netty-incubator-transport-native-io_uring 依赖），不可用时回退为 NIO
+     */
+    IO_URING
+}
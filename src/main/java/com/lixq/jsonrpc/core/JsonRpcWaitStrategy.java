@@ -0,0 +1,15 @@
+package com.lixq.jsonrpc.core;
+
+/**
+ * 共享内存传输中读端等待新数据的策略
+ */
+public enum JsonRpcWaitStrategy {
+    /**
+     * 持续自旋轮询，延迟最低，每个有连接的 EventLoop 线程占满一个 CPU 核
+     */
+    BUSY_SPIN,
+    /**
+     * 先自旋，再让出 CPU，之后按指数退避 park（最长 1 毫秒），空闲时几乎不占用 CPU
+     */
+    PARK
+}
@@ -8,6 +8,7 @@ package com.lixq.jsonrpc.core;
  * -32601	Method not found找不到方法	该方法不存在或无效
  * -32602	Invalid params无效的参数	无效的方法参数。
  * -32603	Internal error内部错误	JSON-RPC内部错误。
+ * -32001	Server busy服务繁忙	业务线程池已满，请求被拒绝。
  * -32000 to -32099	Server error服务端错误	预留用于自定义的服务器错误。
  */
 public enum RpcErrorEnums {
@@ -16,6 +17,7 @@ public enum RpcErrorEnums {
     MethodNotFound(-32601, "Method not found",null),
     InvalidParams(-32602, "method parameters invalid",null),
     InternalError(-32603, "internal error",null),
+    ServerBusy(-32001, "server busy",null),
     BulkError(-32002, "bulk error",null);
 
 
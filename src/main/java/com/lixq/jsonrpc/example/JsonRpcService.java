@@ -12,7 +12,7 @@ public class JsonRpcService {
         return "Hello, " + name + "!";
     }
 
-    @JsonRpcMethod("add")
+    @JsonRpcMethod(value = "add", params = {"a", "b"})
     public Integer add(Integer a, Integer b) {
         return a + b;
     }
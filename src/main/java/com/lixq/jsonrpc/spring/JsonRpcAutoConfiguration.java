@@ -1,18 +1,26 @@
 package com.lixq.jsonrpc.spring;
 
 import com.lixq.jsonrpc.JsonRpcClient;
+import com.lixq.jsonrpc.JsonRpcHttp2;
+import com.lixq.jsonrpc.JsonRpcMeterBinder;
 import com.lixq.jsonrpc.JsonRpcServer;
 import com.lixq.jsonrpc.JsonRpcServiceRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.DependsOn;
+import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import javax.net.ssl.SSLException;
+import java.io.File;
 
 /**
  * JSON-RPC 自动配置类
@@ -64,6 +72,39 @@ public class JsonRpcAutoConfiguration {
             serverConfig.getPort(),
             serviceRegistry
         );
+        jsonRpcServer.setTransport(serverConfig.getTransport());
+        jsonRpcServer.setSocketPath(serverConfig.getSocketPath());
+        jsonRpcServer.setSharedMemoryPath(serverConfig.getSharedMemoryPath());
+        jsonRpcServer.setSharedMemorySlots(serverConfig.getSharedMemorySlots());
+        jsonRpcServer.setSharedMemoryRingSize(serverConfig.getSharedMemoryRingSize());
+        jsonRpcServer.setSharedMemoryWaitStrategy(serverConfig.getSharedMemoryWaitStrategy());
+        jsonRpcServer.setLocalName(serverConfig.getLocalName());
+        jsonRpcServer.setFraming(serverConfig.getFraming());
+        jsonRpcServer.setMaxFrameLength(serverConfig.getMaxFrameLength());
+        jsonRpcServer.setEncoding(serverConfig.getEncoding());
+        jsonRpcServer.setCompressionThreshold(serverConfig.getCompressionThreshold());
+        jsonRpcServer.setMaxPipelinedRequests(serverConfig.getMaxPipelinedRequests());
+        jsonRpcServer.setMaxConcurrentStreams(serverConfig.getMaxConcurrentStreams());
+        if (StringUtils.hasText(serverConfig.getSslCertificateChain())) {
+            try {
+                jsonRpcServer.setSslContext(JsonRpcHttp2.serverSslContext(
+                    new File(serverConfig.getSslCertificateChain()), new File(serverConfig.getSslPrivateKey())));
+            } catch (SSLException e) {
+                throw new IllegalStateException("Invalid JSON-RPC server TLS configuration", e);
+            }
+        }
+        jsonRpcServer.setWebSocketPath(serverConfig.getWebsocketPath());
+        jsonRpcServer.setWebSocketCompression(serverConfig.isWebsocketCompression());
+        jsonRpcServer.setSubscriberQueueCapacity(serverConfig.getSubscriberQueueCapacity());
+        jsonRpcServer.setSubscriberOverflowPolicy(serverConfig.getSubscriberOverflowPolicy());
+        jsonRpcServer.setExecutionMode(serverConfig.getExecutionMode());
+        jsonRpcServer.setDispatchThreads(serverConfig.getDispatchThreads());
+        jsonRpcServer.setDispatchQueueCapacity(serverConfig.getDispatchQueueCapacity());
+        jsonRpcServer.setBatchConcurrency(serverConfig.getBatchConcurrency());
+        jsonRpcServer.setMetricsEnabled(serverConfig.isMetricsEnabled());
+        jsonRpcServer.setSlowRequestThresholdMillis(serverConfig.getSlowRequestThresholdMillis());
+        jsonRpcServer.setSlowRequestSampleRate(serverConfig.getSlowRequestSampleRate());
+        jsonRpcServer.setSlowRequestLogsPerSecond(serverConfig.getSlowRequestLogsPerSecond());
 
         // 异步启动服务器
         serverThread = new Thread(() -> {
@@ -107,9 +148,34 @@ public class JsonRpcAutoConfiguration {
         JsonRpcProperties.Client clientConfig = properties.getClient();
         
         JsonRpcClient client = new JsonRpcClient(
+            clientConfig.getProtocol(),
             clientConfig.getHost(),
             clientConfig.getPort()
         );
+        client.setMaxConnections(clientConfig.getMaxConnections());
+        client.setTransport(clientConfig.getTransport());
+        client.setSocketPath(clientConfig.getSocketPath());
+        client.setSharedMemoryPath(clientConfig.getSharedMemoryPath());
+        client.setSharedMemoryWaitStrategy(clientConfig.getSharedMemoryWaitStrategy());
+        client.setLocalName(clientConfig.getLocalName());
+        client.setFraming(clientConfig.getFraming());
+        client.setMaxFrameLength(clientConfig.getMaxFrameLength());
+        client.setEncoding(clientConfig.getEncoding());
+        client.setCompression(clientConfig.getCompression());
+        client.setCompressionThreshold(clientConfig.getCompressionThreshold());
+        if (clientConfig.isSslEnabled()) {
+            try {
+                client.setSslContext(JsonRpcHttp2.clientSslContext(StringUtils.hasText(clientConfig.getSslTrustCertificates())
+                    ? new File(clientConfig.getSslTrustCertificates()) : null));
+            } catch (SSLException e) {
+                throw new IllegalStateException("Invalid JSON-RPC client TLS configuration", e);
+            }
+        }
+        client.setSelectionStrategy(clientConfig.getSelectionStrategy());
+        client.setRequestTimeoutMillis(clientConfig.getRequestTimeoutMillis());
+        client.setAutoBatch(clientConfig.isAutoBatch());
+        client.setBatchWindowMicros(clientConfig.getBatchWindowMicros());
+        client.setMaxBatchSize(clientConfig.getMaxBatchSize());
 
         log.info("JSON-RPC Client auto-configured for {}:{}", 
             clientConfig.getHost(), clientConfig.getPort());
@@ -117,6 +183,19 @@ public class JsonRpcAutoConfiguration {
         return client;
     }
 
+    /**
+     * 存在 Micrometer 时将服务端指标注册到应用的 MeterRegistry
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    static class JsonRpcMetricsConfiguration {
+        @Bean
+        @ConditionalOnProperty(prefix = "jsonrpc.server", name = "metrics-enabled", havingValue = "true", matchIfMissing = true)
+        public MeterBinder jsonRpcMeterBinder(ObjectProvider<JsonRpcServer> jsonRpcServer) {
+            return registry -> jsonRpcServer.ifAvailable(server -> new JsonRpcMeterBinder(server.getMetrics()).bindTo(registry));
+        }
+    }
+
     /**
      * 应用关闭时停止服务器
      */
@@ -1,6 +1,14 @@
 package com.lixq.jsonrpc.spring;
 
+import com.lixq.jsonrpc.core.JsonRpcCompression;
+import com.lixq.jsonrpc.core.JsonRpcEncoding;
+import com.lixq.jsonrpc.core.JsonRpcExecutionMode;
+import com.lixq.jsonrpc.core.JsonRpcFraming;
+import com.lixq.jsonrpc.core.JsonRpcOverflowPolicy;
 import com.lixq.jsonrpc.core.JsonRpcProtocol;
+import com.lixq.jsonrpc.core.JsonRpcSelectionStrategy;
+import com.lixq.jsonrpc.core.JsonRpcTransport;
+import com.lixq.jsonrpc.core.JsonRpcWaitStrategy;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -58,7 +66,7 @@ public class JsonRpcProperties {
         private boolean enabled = true;
         
         /**
-         * 协议类型：TCP, HTTP, WS
+         * 协议类型：TCP, HTTP, HTTP2, WS, IPC（Unix 域套接字）, SHM（共享内存）, LOCAL（同一 JVM 内直接调用）
          */
         private JsonRpcProtocol protocol = JsonRpcProtocol.TCP;
         
@@ -72,6 +80,141 @@ public class JsonRpcProperties {
          */
         private int port = 18080;
 
+        /**
+         * 传输实现：AUTO（自动选择）, NIO, EPOLL, KQUEUE, IO_URING，原生传输不可用时回退为 NIO
+         */
+        private JsonRpcTransport transport = JsonRpcTransport.AUTO;
+
+        /**
+         * IPC 协议的 Unix 域套接字文件路径，需要 epoll 或 kqueue 原生传输
+         */
+        private String socketPath = "/tmp/jsonrpc.sock";
+
+        /**
+         * SHM 协议的共享文件路径，建议位于 tmpfs（如 /dev/shm）
+         */
+        private String sharedMemoryPath = "/dev/shm/jsonrpc";
+
+        /**
+         * SHM 协议的连接槽位数，即同时连接的客户端连接数上限
+         */
+        private int sharedMemorySlots = 8;
+
+        /**
+         * SHM 协议单向环形缓冲区的字节数，向上取整为 2 的幂
+         */
+        private int sharedMemoryRingSize = 4 * 1024 * 1024;
+
+        /**
+         * SHM 协议读端的等待策略：BUSY_SPIN（忙等自旋）, PARK（自旋后退避 park）
+         */
+        private JsonRpcWaitStrategy sharedMemoryWaitStrategy = JsonRpcWaitStrategy.PARK;
+
+        /**
+         * LOCAL 协议的进程内绑定名称，同一 JVM 内的客户端与服务端需一致
+         */
+        private String localName = "jsonrpc";
+
+        /**
+         * 分帧方式：AUTO（按连接首字节识别）, LINE（换行分帧）, LENGTH_PREFIXED（4 字节长度前缀）
+         */
+        private JsonRpcFraming framing = JsonRpcFraming.AUTO;
+
+        /**
+         * 单帧最大字节数
+         */
+        private int maxFrameLength = 1024 * 1024;
+
+        /**
+         * 默认编码格式：JSON, SMILE, CBOR, MSGPACK，客户端可通过握手为单个连接切换
+         */
+        private JsonRpcEncoding encoding = JsonRpcEncoding.JSON;
+
+        /**
+         * 压缩阈值（字节）：TCP 帧压缩算法由客户端在握手时选择，HTTP 按 Accept-Encoding 压缩响应，WS 按 permessage-deflate 压缩消息，负载小于该值时不压缩
+         */
+        private int compressionThreshold = 1024;
+
+        /**
+         * HTTP 协议下单个连接未写出响应的流水线请求上限，达到后暂停读取该连接
+         */
+        private int maxPipelinedRequests = 64;
+
+        /**
+         * HTTP2 协议下单个连接的最大并发流数
+         */
+        private int maxConcurrentStreams = 1024;
+
+        /**
+         * HTTP / HTTP2 / WS 协议的 TLS 证书链文件（PEM），为空时使用明文
+         */
+        private String sslCertificateChain;
+
+        /**
+         * HTTP / HTTP2 / WS 协议的 TLS 私钥文件（PKCS#8 PEM）
+         */
+        private String sslPrivateKey;
+
+        /**
+         * WS 协议的握手路径
+         */
+        private String websocketPath = "/ws";
+
+        /**
+         * WS 协议是否接受客户端协商的 permessage-deflate，只压缩达到 compressionThreshold 的消息
+         */
+        private boolean websocketCompression = true;
+
+        /**
+         * WS 协议下每个订阅的事件队列容量
+         */
+        private int subscriberQueueCapacity = 256;
+
+        /**
+         * 订阅事件队列已满时的处理策略：CONFLATE（丢弃最旧的事件）, DISCONNECT（断开连接）
+         */
+        private JsonRpcOverflowPolicy subscriberOverflowPolicy = JsonRpcOverflowPolicy.CONFLATE;
+
+        /**
+         * 服务方法执行模式：INLINE（I/O 线程）, POOL（有界线程池）, VIRTUAL（虚拟线程，JDK 21+）
+         */
+        private JsonRpcExecutionMode executionMode = JsonRpcExecutionMode.INLINE;
+
+        /**
+         * 业务线程池大小（POOL 模式）
+         */
+        private int dispatchThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+        /**
+         * 业务线程池队列容量（POOL 模式）
+         */
+        private int dispatchQueueCapacity = 1024;
+
+        /**
+         * 单个批量请求最多并行执行的元素数
+         */
+        private int batchConcurrency = 8;
+
+        /**
+         * 是否统计调用指标并提供内置的 rpc.metrics 方法
+         */
+        private boolean metricsEnabled = true;
+
+        /**
+         * 慢请求阈值（毫秒），超过该耗时的请求输出各阶段耗时，0 表示关闭
+         */
+        private long slowRequestThresholdMillis = 0;
+
+        /**
+         * 分阶段计时的请求比例（0 ~ 1）
+         */
+        private double slowRequestSampleRate = 1.0;
+
+        /**
+         * 每秒最多输出的慢请求日志条数
+         */
+        private int slowRequestLogsPerSecond = 10;
+
         public boolean isEnabled() {
             return enabled;
         }
@@ -103,6 +246,222 @@ public class JsonRpcProperties {
         public void setPort(int port) {
             this.port = port;
         }
+
+        public JsonRpcExecutionMode getExecutionMode() {
+            return executionMode;
+        }
+
+        public void setExecutionMode(JsonRpcExecutionMode executionMode) {
+            this.executionMode = executionMode;
+        }
+
+        public int getDispatchThreads() {
+            return dispatchThreads;
+        }
+
+        public void setDispatchThreads(int dispatchThreads) {
+            this.dispatchThreads = dispatchThreads;
+        }
+
+        public int getDispatchQueueCapacity() {
+            return dispatchQueueCapacity;
+        }
+
+        public void setDispatchQueueCapacity(int dispatchQueueCapacity) {
+            this.dispatchQueueCapacity = dispatchQueueCapacity;
+        }
+
+        public int getBatchConcurrency() {
+            return batchConcurrency;
+        }
+
+        public void setBatchConcurrency(int batchConcurrency) {
+            this.batchConcurrency = batchConcurrency;
+        }
+
+        public boolean isMetricsEnabled() {
+            return metricsEnabled;
+        }
+
+        public void setMetricsEnabled(boolean metricsEnabled) {
+            this.metricsEnabled = metricsEnabled;
+        }
+
+        public long getSlowRequestThresholdMillis() {
+            return slowRequestThresholdMillis;
+        }
+
+        public void setSlowRequestThresholdMillis(long slowRequestThresholdMillis) {
+            this.slowRequestThresholdMillis = slowRequestThresholdMillis;
+        }
+
+        public double getSlowRequestSampleRate() {
+            return slowRequestSampleRate;
+        }
+
+        public void setSlowRequestSampleRate(double slowRequestSampleRate) {
+            this.slowRequestSampleRate = slowRequestSampleRate;
+        }
+
+        public int getSlowRequestLogsPerSecond() {
+            return slowRequestLogsPerSecond;
+        }
+
+        public void setSlowRequestLogsPerSecond(int slowRequestLogsPerSecond) {
+            this.slowRequestLogsPerSecond = slowRequestLogsPerSecond;
+        }
+
+        public JsonRpcTransport getTransport() {
+            return transport;
+        }
+
+        public void setTransport(JsonRpcTransport transport) {
+            this.transport = transport;
+        }
+
+        public String getSocketPath() {
+            return socketPath;
+        }
+
+        public void setSocketPath(String socketPath) {
+            this.socketPath = socketPath;
+        }
+
+        public String getSharedMemoryPath() {
+            return sharedMemoryPath;
+        }
+
+        public void setSharedMemoryPath(String sharedMemoryPath) {
+            this.sharedMemoryPath = sharedMemoryPath;
+        }
+
+        public int getSharedMemorySlots() {
+            return sharedMemorySlots;
+        }
+
+        public void setSharedMemorySlots(int sharedMemorySlots) {
+            this.sharedMemorySlots = sharedMemorySlots;
+        }
+
+        public int getSharedMemoryRingSize() {
+            return sharedMemoryRingSize;
+        }
+
+        public void setSharedMemoryRingSize(int sharedMemoryRingSize) {
+            this.sharedMemoryRingSize = sharedMemoryRingSize;
+        }
+
+        public JsonRpcWaitStrategy getSharedMemoryWaitStrategy() {
+            return sharedMemoryWaitStrategy;
+        }
+
+        public void setSharedMemoryWaitStrategy(JsonRpcWaitStrategy sharedMemoryWaitStrategy) {
+            this.sharedMemoryWaitStrategy = sharedMemoryWaitStrategy;
+        }
+
+        public String getLocalName() {
+            return localName;
+        }
+
+        public void setLocalName(String localName) {
+            this.localName = localName;
+        }
+
+        public JsonRpcFraming getFraming() {
+            return framing;
+        }
+
+        public void setFraming(JsonRpcFraming framing) {
+            this.framing = framing;
+        }
+
+        public int getMaxFrameLength() {
+            return maxFrameLength;
+        }
+
+        public void setMaxFrameLength(int maxFrameLength) {
+            this.maxFrameLength = maxFrameLength;
+        }
+
+        public JsonRpcEncoding getEncoding() {
+            return encoding;
+        }
+
+        public void setEncoding(JsonRpcEncoding encoding) {
+            this.encoding = encoding;
+        }
+
+        public int getCompressionThreshold() {
+            return compressionThreshold;
+        }
+
+        public void setCompressionThreshold(int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+        }
+
+        public int getMaxPipelinedRequests() {
+            return maxPipelinedRequests;
+        }
+
+        public void setMaxPipelinedRequests(int maxPipelinedRequests) {
+            this.maxPipelinedRequests = maxPipelinedRequests;
+        }
+
+        public int getMaxConcurrentStreams() {
+            return maxConcurrentStreams;
+        }
+
+        public void setMaxConcurrentStreams(int maxConcurrentStreams) {
+            this.maxConcurrentStreams = maxConcurrentStreams;
+        }
+
+        public String getSslCertificateChain() {
+            return sslCertificateChain;
+        }
+
+        public void setSslCertificateChain(String sslCertificateChain) {
+            this.sslCertificateChain = sslCertificateChain;
+        }
+
+        public String getSslPrivateKey() {
+            return sslPrivateKey;
+        }
+
+        public void setSslPrivateKey(String sslPrivateKey) {
+            this.sslPrivateKey = sslPrivateKey;
+        }
+
+        public String getWebsocketPath() {
+            return websocketPath;
+        }
+
+        public void setWebsocketPath(String websocketPath) {
+            this.websocketPath = websocketPath;
+        }
+
+        public boolean isWebsocketCompression() {
+            return websocketCompression;
+        }
+
+        public void setWebsocketCompression(boolean websocketCompression) {
+            this.websocketCompression = websocketCompression;
+        }
+
+        public int getSubscriberQueueCapacity() {
+            return subscriberQueueCapacity;
+        }
+
+        public void setSubscriberQueueCapacity(int subscriberQueueCapacity) {
+            this.subscriberQueueCapacity = subscriberQueueCapacity;
+        }
+
+        public JsonRpcOverflowPolicy getSubscriberOverflowPolicy() {
+            return subscriberOverflowPolicy;
+        }
+
+        public void setSubscriberOverflowPolicy(JsonRpcOverflowPolicy subscriberOverflowPolicy) {
+            this.subscriberOverflowPolicy = subscriberOverflowPolicy;
+        }
     }
 
     /**
@@ -114,6 +473,11 @@ public class JsonRpcProperties {
          */
         private boolean enabled = false;
         
+        /**
+         * 协议类型：TCP, HTTP2（每个调用占用一个 HTTP/2 流）, IPC（Unix 域套接字）, SHM（共享内存）, LOCAL（同一 JVM 内直接调用）
+         */
+        private JsonRpcProtocol protocol = JsonRpcProtocol.TCP;
+        
         /**
          * 服务器地址
          */
@@ -129,6 +493,96 @@ public class JsonRpcProperties {
          */
         private int connectTimeout = 5;
 
+        /**
+         * 传输实现：AUTO（自动选择）, NIO, EPOLL, KQUEUE, IO_URING，原生传输不可用时回退为 NIO
+         */
+        private JsonRpcTransport transport = JsonRpcTransport.AUTO;
+
+        /**
+         * IPC 协议的 Unix 域套接字文件路径，需要 epoll 或 kqueue 原生传输
+         */
+        private String socketPath = "/tmp/jsonrpc.sock";
+
+        /**
+         * SHM 协议的共享文件路径，需与服务端一致
+         */
+        private String sharedMemoryPath = "/dev/shm/jsonrpc";
+
+        /**
+         * SHM 协议读端的等待策略：BUSY_SPIN（忙等自旋）, PARK（自旋后退避 park）
+         */
+        private JsonRpcWaitStrategy sharedMemoryWaitStrategy = JsonRpcWaitStrategy.PARK;
+
+        /**
+         * LOCAL 协议的进程内绑定名称，同一 JVM 内的客户端与服务端需一致
+         */
+        private String localName = "jsonrpc";
+
+        /**
+         * 分帧方式：LINE（换行分帧）, LENGTH_PREFIXED（4 字节长度前缀），需与服务端一致
+         */
+        private JsonRpcFraming framing = JsonRpcFraming.LINE;
+
+        /**
+         * 单帧最大字节数
+         */
+        private int maxFrameLength = 1024 * 1024;
+
+        /**
+         * 编码格式：JSON, SMILE, CBOR, MSGPACK，二进制格式使用长度前缀分帧并在连接时握手
+         */
+        private JsonRpcEncoding encoding = JsonRpcEncoding.JSON;
+
+        /**
+         * 帧压缩算法：NONE, LZ4, ZSTD, DEFLATE，在连接握手时协商，使用长度前缀分帧
+         */
+        private JsonRpcCompression compression = JsonRpcCompression.NONE;
+
+        /**
+         * 帧压缩阈值（字节），请求负载小于该值时不压缩
+         */
+        private int compressionThreshold = 1024;
+
+        /**
+         * HTTP2 协议是否使用 TLS
+         */
+        private boolean sslEnabled = false;
+
+        /**
+         * 信任的服务端证书文件（PEM），为空时使用 JDK 默认信任库
+         */
+        private String sslTrustCertificates;
+
+        /**
+         * 每个服务端的最大连接数，连接按需创建
+         */
+        private int maxConnections = 1;
+
+        /**
+         * 连接选择策略：LEAST_PENDING（未完成请求最少）, ROUND_ROBIN（轮询）
+         */
+        private JsonRpcSelectionStrategy selectionStrategy = JsonRpcSelectionStrategy.LEAST_PENDING;
+
+        /**
+         * 默认请求超时时间（毫秒），小于等于 0 表示不超时
+         */
+        private long requestTimeoutMillis = 30000;
+
+        /**
+         * 是否开启自动微批，将窗口内的请求合并为 JSON-RPC 批量请求发送
+         */
+        private boolean autoBatch = false;
+
+        /**
+         * 微批收集窗口（微秒）
+         */
+        private long batchWindowMicros = 200;
+
+        /**
+         * 单个批量请求的最大请求数
+         */
+        private int maxBatchSize = 64;
+
         public boolean isEnabled() {
             return enabled;
         }
@@ -160,5 +614,157 @@ public class JsonRpcProperties {
         public void setConnectTimeout(int connectTimeout) {
             this.connectTimeout = connectTimeout;
         }
+
+        public JsonRpcProtocol getProtocol() {
+            return protocol;
+        }
+
+        public void setProtocol(JsonRpcProtocol protocol) {
+            this.protocol = protocol;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public JsonRpcSelectionStrategy getSelectionStrategy() {
+            return selectionStrategy;
+        }
+
+        public void setSelectionStrategy(JsonRpcSelectionStrategy selectionStrategy) {
+            this.selectionStrategy = selectionStrategy;
+        }
+
+        public long getRequestTimeoutMillis() {
+            return requestTimeoutMillis;
+        }
+
+        public void setRequestTimeoutMillis(long requestTimeoutMillis) {
+            this.requestTimeoutMillis = requestTimeoutMillis;
+        }
+
+        public boolean isAutoBatch() {
+            return autoBatch;
+        }
+
+        public void setAutoBatch(boolean autoBatch) {
+            this.autoBatch = autoBatch;
+        }
+
+        public long getBatchWindowMicros() {
+            return batchWindowMicros;
+        }
+
+        public void setBatchWindowMicros(long batchWindowMicros) {
+            this.batchWindowMicros = batchWindowMicros;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public JsonRpcTransport getTransport() {
+            return transport;
+        }
+
+        public void setTransport(JsonRpcTransport transport) {
+            this.transport = transport;
+        }
+
+        public String getSocketPath() {
+            return socketPath;
+        }
+
+        public void setSocketPath(String socketPath) {
+            this.socketPath = socketPath;
+        }
+
+        public String getSharedMemoryPath() {
+            return sharedMemoryPath;
+        }
+
+        public void setSharedMemoryPath(String sharedMemoryPath) {
+            this.sharedMemoryPath = sharedMemoryPath;
+        }
+
+        public JsonRpcWaitStrategy getSharedMemoryWaitStrategy() {
+            return sharedMemoryWaitStrategy;
+        }
+
+        public void setSharedMemoryWaitStrategy(JsonRpcWaitStrategy sharedMemoryWaitStrategy) {
+            this.sharedMemoryWaitStrategy = sharedMemoryWaitStrategy;
+        }
+
+        public String getLocalName() {
+            return localName;
+        }
+
+        public void setLocalName(String localName) {
+            this.localName = localName;
+        }
+
+        public JsonRpcFraming getFraming() {
+            return framing;
+        }
+
+        public void setFraming(JsonRpcFraming framing) {
+            this.framing = framing;
+        }
+
+        public int getMaxFrameLength() {
+            return maxFrameLength;
+        }
+
+        public void setMaxFrameLength(int maxFrameLength) {
+            this.maxFrameLength = maxFrameLength;
+        }
+
+        public JsonRpcEncoding getEncoding() {
+            return encoding;
+        }
+
+        public void setEncoding(JsonRpcEncoding encoding) {
+            this.encoding = encoding;
+        }
+
+        public JsonRpcCompression getCompression() {
+            return compression;
+        }
+
+        public void setCompression(JsonRpcCompression compression) {
+            this.compression = compression;
+        }
+
+        public int getCompressionThreshold() {
+            return compressionThreshold;
+        }
+
+        public void setCompressionThreshold(int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+        }
+
+        public boolean isSslEnabled() {
+            return sslEnabled;
+        }
+
+        public void setSslEnabled(boolean sslEnabled) {
+            this.sslEnabled = sslEnabled;
+        }
+
+        public String getSslTrustCertificates() {
+            return sslTrustCertificates;
+        }
+
+        public void setSslTrustCertificates(String sslTrustCertificates) {
+            this.sslTrustCertificates = sslTrustCertificates;
+        }
     }
 }
@@ -0,0 +1,101 @@
+package com.lixq.jsonrpc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.lixq.jsonrpc.core.RpcRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 请求信封的流式解析
+ */
+class JsonRpcEnvelopeParserTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonRpcEnvelopeParser parser = new JsonRpcEnvelopeParser(objectMapper);
+
+    @Test
+    void singleRequestKeepsParamsUnbound() throws IOException {
+        JsonRpcEnvelopeParser.Envelope envelope = parse(
+            "{\"params\":{\"b\":[1,2],\"a\":\"x\"},\"method\":\"sum\",\"id\":7,\"jsonrpc\":\"2.0\",\"extra\":{\"n\":1}}");
+        assertFalse(envelope.isBatch());
+        RpcRequest request = envelope.getRequests()[0];
+        assertEquals("2.0", request.getJsonrpc());
+        assertEquals("sum", request.getMethod());
+        assertEquals("7", request.getId());
+        assertInstanceOf(TokenBuffer.class, request.getParams());
+        Map<?, ?> params = objectMapper.readValue(((TokenBuffer) request.getParams()).asParser(objectMapper), Map.class);
+        assertEquals("x", params.get("a"));
+        assertEquals(Arrays.asList(1, 2), params.get("b"));
+    }
+
+    @Test
+    void nullParamsAndMissingId() throws IOException {
+        RpcRequest request = parse("{\"jsonrpc\":\"2.0\",\"method\":\"ping\",\"params\":null}").getRequests()[0];
+        assertNull(request.getParams());
+        assertNull(request.getId());
+    }
+
+    @Test
+    void batchKeepsOrderAndInvalidElements() throws IOException {
+        JsonRpcEnvelopeParser.Envelope envelope = parse(
+            "[{\"jsonrpc\":\"2.0\",\"method\":\"a\",\"id\":\"x\"},1,[2],{\"jsonrpc\":\"2.0\",\"method\":\"b\"}]");
+        assertTrue(envelope.isBatch());
+        RpcRequest[] requests = envelope.getRequests();
+        assertEquals(4, requests.length);
+        assertEquals("a", requests[0].getMethod());
+        assertEquals("x", requests[0].getId());
+        assertNull(requests[1].getMethod());
+        assertNull(requests[2].getMethod());
+        assertEquals("b", requests[3].getMethod());
+    }
+
+    @Test
+    void emptyBatchHasNoRequests() throws IOException {
+        JsonRpcEnvelopeParser.Envelope envelope = parse("[]");
+        assertTrue(envelope.isBatch());
+        assertEquals(0, envelope.getRequests().length);
+    }
+
+    @Test
+    void nonScalarEnvelopeFieldsInvalidateRequest() throws IOException {
+        assertNull(parse("{\"jsonrpc\":\"2.0\",\"method\":{\"x\":1},\"id\":1}").getRequests()[0].getMethod());
+        RpcRequest request = parse("{\"jsonrpc\":\"2.0\",\"method\":\"m\",\"id\":[1]}").getRequests()[0];
+        assertNull(request.getMethod());
+        assertNull(request.getId());
+    }
+
+    @Test
+    void malformedInputIsRejected() {
+        assertThrows(IOException.class, () -> parse(""));
+        assertThrows(IOException.class, () -> parse("[{\"method\":\"a\"}"));
+        assertThrows(IOException.class, () -> parse("{bad}"));
+    }
+
+    @Test
+    void parsesDirectBuffers() throws IOException {
+        byte[] json = "{\"jsonrpc\":\"2.0\",\"method\":\"echo\",\"id\":1}".getBytes(StandardCharsets.UTF_8);
+        ByteBuf buf = Unpooled.directBuffer(json.length).writeBytes(json);
+        try {
+            assertEquals("echo", parser.parse(buf).getRequests()[0].getMethod());
+        } finally {
+            buf.release();
+        }
+    }
+
+    private JsonRpcEnvelopeParser.Envelope parse(String json) throws IOException {
+        return parser.parse(Unpooled.wrappedBuffer(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
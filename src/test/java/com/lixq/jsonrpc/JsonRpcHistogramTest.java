@@ -0,0 +1,100 @@
+package com.lixq.jsonrpc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 对数-线性分桶与百分位数计算
+ */
+class JsonRpcHistogramTest {
+    private static final long MAX_VALUE = (1L << 40) - 1;
+
+    @Test
+    void valuesBelow64HaveOneBucketEach() {
+        for (int value = 0; value < 64; value++) {
+            assertEquals(value, JsonRpcHistogram.bucketIndex(value));
+            assertEquals(value, JsonRpcHistogram.highestValueInBucket(value));
+        }
+    }
+
+    @Test
+    void bucketBoundariesAround64() {
+        assertEquals(63, JsonRpcHistogram.bucketIndex(63));
+        assertEquals(64, JsonRpcHistogram.bucketIndex(64));
+        assertEquals(64, JsonRpcHistogram.bucketIndex(65));
+        assertEquals(65, JsonRpcHistogram.bucketIndex(66));
+        assertEquals(63, JsonRpcHistogram.highestValueInBucket(63));
+        assertEquals(65, JsonRpcHistogram.highestValueInBucket(64));
+        assertEquals(67, JsonRpcHistogram.highestValueInBucket(65));
+    }
+
+    @Test
+    void maxValueFallsInLastBucket() {
+        int last = JsonRpcHistogram.BUCKET_COUNT - 1;
+        assertEquals(last, JsonRpcHistogram.bucketIndex(MAX_VALUE));
+        assertEquals(MAX_VALUE, JsonRpcHistogram.highestValueInBucket(last));
+        assertEquals(last - 1, JsonRpcHistogram.bucketIndex(JsonRpcHistogram.highestValueInBucket(last - 1)));
+    }
+
+    @Test
+    void everyValueLiesInItsBucketWithinRelativeError() {
+        for (int shift = 0; shift < 40; shift++) {
+            for (long base : new long[]{(1L << shift) - 1, 1L << shift, (1L << shift) + 1, (3L << shift) / 2}) {
+                if (base < 0 || base > MAX_VALUE) {
+                    continue;
+                }
+                int index = JsonRpcHistogram.bucketIndex(base);
+                long high = JsonRpcHistogram.highestValueInBucket(index);
+                assertTrue(high >= base, "value " + base + " above bucket " + index);
+                if (index > 0) {
+                    assertTrue(JsonRpcHistogram.highestValueInBucket(index - 1) < base, "value " + base + " below bucket " + index);
+                }
+                assertTrue(high - base <= base / 32, "bucket of " + base + " too wide: " + high);
+            }
+        }
+    }
+
+    @Test
+    void recordClampsNegativeAndHugeValues() {
+        JsonRpcHistogram histogram = new JsonRpcHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(MAX_VALUE, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void percentilesUseNearestRank() {
+        JsonRpcHistogram histogram = new JsonRpcHistogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        assertArrayEquals(new long[]{1, 50, 99, 100}, histogram.getValuesAtPercentiles(0, 50, 99, 100));
+        assertEquals(50.5, histogram.getMean());
+        assertEquals(5050, histogram.getTotal());
+    }
+
+    @Test
+    void percentileDoesNotExceedObservedMax() {
+        JsonRpcHistogram histogram = new JsonRpcHistogram();
+        histogram.record(1000);
+        // 1000 所在桶的上界为 1007
+        assertEquals(1007, JsonRpcHistogram.highestValueInBucket(JsonRpcHistogram.bucketIndex(1000)));
+        assertEquals(1000, histogram.getValueAtPercentile(99.9));
+    }
+
+    @Test
+    void resetClearsEverything() {
+        JsonRpcHistogram histogram = new JsonRpcHistogram();
+        histogram.record(42);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+}
@@ -0,0 +1,106 @@
+package com.lixq.jsonrpc;
+
+import com.lixq.jsonrpc.core.JsonRpcCacheKey;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LRU 淘汰、字节上限、过期与键生成
+ */
+class JsonRpcResultCacheTest {
+    private static final long TTL = 60_000;
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() throws IOException {
+        JsonRpcResultCache cache = new JsonRpcResultCache("m", TTL, 2, Long.MAX_VALUE, JsonRpcCacheKey.CANONICAL);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        // 访问 a 后 b 成为最久未使用的条目
+        assertNotNull(cache.get("a"));
+        cache.put("c", 3);
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void byteCapEvictsUntilUnderLimit() throws IOException {
+        // "aaaa" 序列化为 6 字节
+        JsonRpcResultCache cache = new JsonRpcResultCache("m", TTL, 100, 13, JsonRpcCacheKey.CANONICAL);
+        cache.put("1", "aaaa");
+        cache.put("2", "bbbb");
+        assertEquals(12, cache.getBytes());
+        cache.put("3", "cccc");
+        assertEquals(2, cache.size());
+        assertEquals(12, cache.getBytes());
+        assertNull(cache.get("1"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void oversizedResultIsReturnedButNotCached() throws IOException {
+        JsonRpcResultCache cache = new JsonRpcResultCache("m", TTL, 100, 4, JsonRpcCacheKey.CANONICAL);
+        cache.put("small", 1);
+        JsonRpcResultCache.CachedResult result = cache.put("big", "too long");
+        assertEquals("\"too long\"", new String(result.getJson(), StandardCharsets.UTF_8));
+        assertNull(cache.get("big"));
+        assertNotNull(cache.get("small"));
+        assertEquals(1, cache.getBytes());
+    }
+
+    @Test
+    void replacingKeyAdjustsBytes() throws IOException {
+        JsonRpcResultCache cache = new JsonRpcResultCache("m", TTL, 100, 100, JsonRpcCacheKey.CANONICAL);
+        cache.put("k", "aaaa");
+        cache.put("k", "a");
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.getBytes());
+        assertTrue(cache.invalidate("k"));
+        assertFalse(cache.invalidate("k"));
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    void expiredEntryIsRemovedOnAccess() throws IOException {
+        JsonRpcResultCache cache = new JsonRpcResultCache("m", 0, 100, 100, JsonRpcCacheKey.CANONICAL);
+        cache.put("k", 1);
+        assertNull(cache.get("k"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void canonicalKeyIgnoresMapOrder() throws IOException {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("b", 2);
+        first.put("a", 1);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("a", 1);
+        second.put("b", 2);
+        JsonRpcResultCache cache = new JsonRpcResultCache("m", TTL, 100, 100, JsonRpcCacheKey.CANONICAL);
+        assertFalse(cache.isKeyedBeforeBinding());
+        assertEquals(cache.key(null, new Object[]{first}), cache.key(null, new Object[]{second}));
+    }
+
+    @Test
+    void methodKeyIgnoresParams() throws IOException {
+        JsonRpcResultCache cache = new JsonRpcResultCache("m", TTL, 100, 100, JsonRpcCacheKey.METHOD);
+        assertTrue(cache.isKeyedBeforeBinding());
+        assertEquals(cache.key(Collections.singletonList(1), null), cache.key(Collections.singletonList(2), null));
+    }
+}
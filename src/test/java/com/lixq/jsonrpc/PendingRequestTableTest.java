@@ -0,0 +1,138 @@
+package com.lixq.jsonrpc;
+
+import com.lixq.jsonrpc.core.RpcResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 环形槽位、溢出表与调用方自定义 id
+ */
+class PendingRequestTableTest {
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        PendingRequestTable table = new PendingRequestTable(3);
+        PendingRequestTable.PendingRequest first = table.register(1);
+        // 4 个槽位：1 与 5 落在同一槽位，1 与 4 不冲突
+        PendingRequestTable.PendingRequest other = table.register(4);
+        PendingRequestTable.PendingRequest collided = table.register(5);
+        assertEquals(3, table.size());
+        assertSame(collided, table.remove(5));
+        assertSame(first, table.remove(1));
+        assertSame(other, table.remove(4));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void collidingIdsGoToOverflow() {
+        PendingRequestTable table = new PendingRequestTable(4);
+        PendingRequestTable.PendingRequest a = table.register(2);
+        PendingRequestTable.PendingRequest b = table.register(6);
+        PendingRequestTable.PendingRequest c = table.register(10);
+        // 槽位中的请求先完成后，槽位可被后续请求复用
+        assertSame(a, table.remove(2));
+        PendingRequestTable.PendingRequest d = table.register(14);
+        assertSame(c, table.remove(10));
+        assertSame(b, table.remove(6));
+        assertSame(d, table.remove(14));
+        assertNull(table.remove(2));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void removeDoesNotMatchDifferentIdInSameSlot() {
+        PendingRequestTable table = new PendingRequestTable(4);
+        PendingRequestTable.PendingRequest request = table.register(3);
+        assertNull(table.remove(7));
+        assertEquals(1, table.size());
+        assertSame(request, table.remove(3));
+    }
+
+    @Test
+    void removeSpecificRequestOnlyOnce() {
+        PendingRequestTable table = new PendingRequestTable(4);
+        PendingRequestTable.PendingRequest slotted = table.register(1);
+        PendingRequestTable.PendingRequest overflowed = table.register(5);
+        assertTrue(table.remove(overflowed));
+        assertFalse(table.remove(overflowed));
+        assertTrue(table.remove(slotted));
+        assertFalse(table.remove(slotted));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void responseIdsMatchOnlyNumericIds() {
+        PendingRequestTable table = new PendingRequestTable();
+        PendingRequestTable.PendingRequest request = table.register(42, "42-custom");
+        assertNull(table.remove("42-custom"));
+        assertNull(table.remove((String) null));
+        assertNull(table.remove("-1"));
+        assertSame(request, table.remove("42"));
+        assertEquals("42-custom", request.getKey());
+    }
+
+    @Test
+    void namedKeyRemovesRequestFromSlots() {
+        PendingRequestTable table = new PendingRequestTable();
+        PendingRequestTable.PendingRequest request = table.register(7, "abc");
+        assertSame(request, table.removeByKey("abc"));
+        assertNull(table.removeByKey("abc"));
+        assertNull(table.remove(7));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void removingByIdReleasesNamedKey() {
+        PendingRequestTable table = new PendingRequestTable();
+        table.register(7, "abc");
+        table.remove(7);
+        PendingRequestTable.PendingRequest next = table.register(8, "abc");
+        assertSame(next, table.removeByKey("abc"));
+    }
+
+    @Test
+    void callerCompletionReleasesEntry() {
+        PendingRequestTable table = new PendingRequestTable(4);
+        PendingRequestTable.PendingRequest cancelled = table.register(1);
+        PendingRequestTable.PendingRequest failed = table.register(5, "k");
+        PendingRequestTable.PendingRequest completed = table.register(2);
+        cancelled.cancel(true);
+        failed.completeExceptionally(new IllegalStateException());
+        completed.complete(new RpcResponse("ok", "2"));
+        assertEquals(0, table.size());
+        assertNull(table.remove(1));
+        assertNull(table.removeByKey("k"));
+    }
+
+    @Test
+    void drainRemovesSlotsAndOverflow() {
+        PendingRequestTable table = new PendingRequestTable(4);
+        table.register(1);
+        table.register(5);
+        table.register(2, "k");
+        List<PendingRequestTable.PendingRequest> drained = table.drain();
+        assertEquals(3, drained.size());
+        assertEquals(0, table.size());
+        assertNull(table.removeByKey("k"));
+        // 已被取出的请求之后完成不会再影响计数
+        drained.get(0).cancel(true);
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void parseIdRejectsNonDecimal() {
+        assertEquals(0, PendingRequestTable.parseId("0"));
+        assertEquals(123456789012345678L, PendingRequestTable.parseId("123456789012345678"));
+        assertEquals(-1, PendingRequestTable.parseId(""));
+        assertEquals(-1, PendingRequestTable.parseId("1234567890123456789"));
+        assertEquals(-1, PendingRequestTable.parseId("12a"));
+        assertEquals(-1, PendingRequestTable.parseId("-3"));
+    }
+}